@@ -0,0 +1,60 @@
+// File: EmployeeParseWorkloads.java
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import bench.Workload;
+
+/*
+ * The two parsers timed by bench.EmployeeParseBenchmark, each over 'size' lines.
+ */
+public class EmployeeParseWorkloads {
+    static String[] lines(int size) {
+        Random random = new Random(42);
+        String[] lines = new String[size];
+        for (int i = 0; i < size; i++) {
+            double salary = 20000 + random.nextInt(180000) + random.nextInt(100) / 100.0;
+            lines[i] = new Employee(i + 1, "Employee" + (i + 1), salary).toString();
+        }
+        return lines;
+    }
+
+    public static Workload create(String name) {
+        switch (name) {
+            case "fromString":
+                return new Workload() {
+                    String[] lines;
+
+                    public void setup(int size) {
+                        lines = lines(size);
+                    }
+
+                    public Object op() {
+                        double total = 0;
+                        for (String line : lines) {
+                            total += Employee.fromString(line).salary;
+                        }
+                        return total;
+                    }
+                };
+            case "bytes":
+                return new Workload() {
+                    ByteBuffer file;
+                    EmployeeParallelScanner.EmployeeConsumer<EmployeeParallelScanner.SalaryStats> stats;
+
+                    public void setup(int size) {
+                        String text = String.join("\n", lines(size)) + "\n";
+                        file = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+                        stats = EmployeeParallelScanner.salaryStats();
+                    }
+
+                    public Object op() {
+                        EmployeeParallelScanner.SalaryStats s = stats.newState();
+                        EmployeeParallelScanner.parseChunk(file, stats, s);
+                        return s.sum;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown parser " + name);
+        }
+    }
+}
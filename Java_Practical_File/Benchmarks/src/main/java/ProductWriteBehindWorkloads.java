@@ -0,0 +1,97 @@
+// File: ProductWriteBehindWorkloads.java
+import java.sql.*;
+import java.util.*;
+import bench.Workload;
+import util.ConnectionProvider;
+
+/*
+ * The two ways of writing price updates timed by bench.ProductWriteBehindBenchmark,
+ * each UPDATES updates per op over 'size' seeded products.
+ */
+public class ProductWriteBehindWorkloads {
+    static final String URL = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:companydb;DB_CLOSE_DELAY=-1");
+    static final int UPDATES = 1_000;
+
+    abstract static class ProductWorkload implements Workload {
+        Connection con;
+        ConnectionProvider pool;
+        Random random = new Random(42);
+        int products;
+
+        public void setup(int size) throws Exception {
+            products = size;
+            con = DriverManager.getConnection(URL, "sa", "");
+            try (Statement st = con.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS Product");
+                st.execute("CREATE TABLE Product (ProductID INT AUTO_INCREMENT PRIMARY KEY, ProductName VARCHAR(50), "
+                           + "Price DOUBLE, Quantity INT)");
+            }
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO Product (ProductName, Price, Quantity) VALUES (?, ?, ?)")) {
+                for (int i = 1; i <= size; i++) {
+                    ps.setString(1, "Product" + i);
+                    ps.setDouble(2, 10);
+                    ps.setInt(3, 1);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            pool = new ConnectionProvider(URL, "sa", "", 1, 4, 5_000, 60_000, 60_000);
+        }
+
+        // Cubing a uniform number makes low IDs much more likely than high ones
+        int nextId() {
+            double u = random.nextDouble();
+            return 1 + (int) (u * u * u * products);
+        }
+
+        public void tearDown() throws Exception {
+            pool.close();
+            con.close();
+        }
+    }
+
+    public static Workload create(String name) {
+        switch (name) {
+            case "commitPerUpdate":
+                return new ProductWorkload() {
+                    public Object op() throws Exception {
+                        try (Connection c = pool.getConnection();
+                             PreparedStatement ps = c.prepareStatement("UPDATE Product SET Price=? WHERE ProductID=?")) {
+                            c.setAutoCommit(false);
+                            for (int i = 0; i < UPDATES; i++) {
+                                ps.setDouble(1, random.nextInt(100));
+                                ps.setInt(2, nextId());
+                                ps.executeUpdate();
+                                c.commit();
+                            }
+                        }
+                        return this;
+                    }
+                };
+            case "writeBehindQueue":
+                return new ProductWorkload() {
+                    ProductWriteBehindQueue queue;
+
+                    public void setup(int size) throws Exception {
+                        super.setup(size);
+                        queue = new ProductWriteBehindQueue(pool, 10_000, 500, 1_000);
+                    }
+
+                    public Object op() throws Exception {
+                        for (int i = 0; i < UPDATES; i++) {
+                            queue.updatePrice(nextId(), random.nextInt(100));
+                        }
+                        queue.flush();
+                        return queue;
+                    }
+
+                    public void tearDown() throws Exception {
+                        queue.close();
+                        super.tearDown();
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown mode " + name);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+// File: StudentDAOAsyncLoadTest.java
+import java.io.*;
+import java.lang.management.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import controller.StudentDAO;
+import controller.StudentDAOAsync;
+import util.ConnectionProvider;
+
+/*
+ * Load test for StudentDAOAsync (Java 21): 'callers' concurrent callers each
+ * send 'requests' requests one after the other (90% getStudent, 10% updateMarks,
+ * student cache off) and wait for every answer. Each request also sleeps
+ * 'latency' ms while it holds its slot, standing in for the network round-trip
+ * to a real MySQL server.
+ *
+ * The same load runs on
+ *   virtual          - a virtual thread per task, 'limit' tasks at the database at once
+ *   fixed-limit      - a fixed pool of 'limit' platform threads
+ *   fixed-callers    - a fixed pool with a platform thread per caller (same 'limit')
+ *
+ * java -cp target/benchmarks.jar StudentDAOAsyncLoadTest [-c 1000] [-r 20] [-l 50] [-latency 5] [-rows 10000]
+ */
+public class StudentDAOAsyncLoadTest {
+    static final String URL = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:schooldb;DB_CLOSE_DELAY=-1");
+
+    public static void main(String[] args) throws Exception {
+        int callers = 1000;
+        int requests = 20;
+        int limit = 50;
+        long latency = 5;
+        int rows = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-c": callers = Integer.parseInt(args[++i]); break;
+                case "-r": requests = Integer.parseInt(args[++i]); break;
+                case "-l": limit = Integer.parseInt(args[++i]); break;
+                case "-latency": latency = Long.parseLong(args[++i]); break;
+                case "-rows": rows = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        try (Connection con = DriverManager.getConnection(URL, "sa", "")) {
+            seed(con, rows);
+            try (ConnectionProvider pool = new ConnectionProvider(URL, "sa", "", 1, limit, 30_000, 60_000, 60_000)) {
+                StudentDAO dao = new StudentDAO(pool, null);
+                System.out.printf("%d callers x %d requests, limit %d, %d ms latency, %d rows%n",
+                                  callers, requests, limit, latency, rows);
+                System.out.printf("%-15s %10s %10s %10s %10s %10s %12s%n",
+                                  "executor", "ops/s", "p50 ms", "p99 ms", "max ms", "threads", "elapsed s");
+                // The first round only warms up the JIT and the pool
+                run("warm-up", dao, Executors.newVirtualThreadPerTaskExecutor(), limit, callers, 2, latency, rows, false);
+                run("virtual", dao, Executors.newVirtualThreadPerTaskExecutor(), limit, callers, requests, latency, rows, true);
+                run("fixed-limit", dao, Executors.newFixedThreadPool(limit), limit, callers, requests, latency, rows, true);
+                run("fixed-callers", dao, Executors.newFixedThreadPool(callers), limit, callers, requests, latency, rows, true);
+            }
+        }
+    }
+
+    static void seed(Connection con, int rows) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS Student");
+            st.execute("CREATE TABLE Student (StudentID INT PRIMARY KEY, Name VARCHAR(50), "
+                       + "Department VARCHAR(50), Marks DOUBLE)");
+        }
+        try (PreparedStatement ps = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                ps.setInt(1, i);
+                ps.setString(2, "Student" + i);
+                ps.setString(3, "CSE");
+                ps.setDouble(4, 50 + i % 50);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    static void run(String name, StudentDAO dao, ExecutorService executor, int limit, int callers, int requests,
+                    long latency, int rows, boolean print) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long[] latencies = new long[callers * requests];
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // updateMarks prints a line per call
+
+        long start = System.nanoTime();
+        try (StudentDAOAsync async = new StudentDAOAsync(dao, executor, limit)) {
+            CountDownLatch done = new CountDownLatch(callers);
+            for (int c = 0; c < callers; c++) {
+                int caller = c;
+                Thread.ofVirtual().start(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        for (int r = 0; r < requests; r++) {
+                            int id = 1 + random.nextInt(rows);
+                            boolean write = random.nextInt(10) == 0;
+                            int marks = random.nextInt(100);
+                            long t0 = System.nanoTime();
+                            async.supply(() -> {
+                                Thread.sleep(latency);
+                                return write ? (Object) dao.updateMarks(id, marks) : dao.getStudent(id);
+                            }).join();
+                            latencies[caller * requests + r] = System.nanoTime() - t0;
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        } finally {
+            System.setOut(out);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("%-15s %10.0f %10.2f %10.2f %10.2f %10d %12.2f%n", name,
+                              latencies.length / (elapsed / 1e9),
+                              latencies[latencies.length / 2] / 1e6,
+                              latencies[(int) (latencies.length * 0.99)] / 1e6,
+                              latencies[latencies.length - 1] / 1e6,
+                              threads.getPeakThreadCount(), elapsed / 1e9);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+// File: StudentSerializationWorkloads.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import bench.Workload;
+
+/*
+ * The two formats timed by bench.StudentSerializationBenchmark, each a write + read
+ * round-trip of 'size' students.
+ */
+public class StudentSerializationWorkloads {
+    static List<Student> students(int size) {
+        String[] courses = { "Computer Science", "Mechanical", "Civil", "Electrical" };
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(new Student("Student" + i, 17 + random.nextInt(10), courses[random.nextInt(courses.length)]));
+        }
+        return students;
+    }
+
+    public static Workload create(String name) {
+        switch (name) {
+            case "objectStream":
+                return new Workload() {
+                    List<Student> students;
+
+                    public void setup(int size) {
+                        students = students(size);
+                    }
+
+                    public Object op() throws Exception {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                            for (Student s : students) oos.writeObject(s);
+                        }
+                        Object last = null;
+                        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                            for (int i = 0; i < students.size(); i++) last = ois.readObject();
+                        }
+                        return last;
+                    }
+                };
+            case "codec":
+                return new Workload() {
+                    List<Student> students;
+                    StudentCodec codec = new StudentCodec();
+                    ByteBuffer buf;
+
+                    public void setup(int size) {
+                        students = students(size);
+                        buf = ByteBuffer.allocate(64 * size + 16);
+                    }
+
+                    public Object op() throws Exception {
+                        buf.clear();
+                        codec.writeBatch(students, buf);
+                        buf.flip();
+                        return codec.readBatch(buf);
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("Unknown format " + name);
+        }
+    }
+}
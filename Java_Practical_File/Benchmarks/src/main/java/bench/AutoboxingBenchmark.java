@@ -0,0 +1,52 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Boxed vs primitive arithmetic, as in SumAutoboxing: adds up 'size' numbers
+ * once through Integer wrappers and once through plain ints.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoboxingBenchmark {
+    @Param({"1000", "1000000"})
+    int size;
+
+    List<Integer> boxed;
+    int[] primitive;
+
+    @Setup
+    public void setup() {
+        boxed = new ArrayList<>(size);
+        primitive = new int[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            primitive[i] = random.nextInt(1000);
+            boxed.add(primitive[i]);
+        }
+    }
+
+    @Benchmark
+    public Integer boxedSum() {
+        Integer sum = 0;
+        for (Integer n : boxed) {
+            sum = sum + n; // unbox, add, box again
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int primitiveSum() {
+        int sum = 0;
+        for (int n : primitive) {
+            sum += n;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Parsing 'size' employees.txt lines: Employee.fromString (split + parseDouble)
+ * against the byte-level parser of EmployeeParallelScanner on one thread.
+ * The work itself is in EmployeeParseWorkloads (unnamed package).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmployeeParseBenchmark {
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"fromString", "bytes"})
+    String parser;
+
+    Workload workload;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.load("EmployeeParseWorkloads", parser, size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        return workload.op();
+    }
+}
@@ -0,0 +1,134 @@
+package bench;
+
+import com.example.CredentialStore;
+import com.example.TokenBuckets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Throughput of the EXP-8 login throttle and credential check, on one thread and
+ * with 16 threads at once (the *Contended methods; -t sets another count):
+ *
+ * - TokenBuckets with every thread on one key (keys=1, worst contention) and spread
+ *   over 100000 keys, next to a plain synchronized HashMap of buckets (impl=synchronized).
+ * - CredentialStore.verify for a user who just logged in (cached) and with the
+ *   cache off, so every check runs PBKDF2 with 'iterations' rounds.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginThrottleBenchmark {
+    // The obvious version: one lock around a map of {tokens, last refill}
+    static class SynchronizedBuckets {
+        private final Map<String, double[]> buckets = new HashMap<>();
+        private final double burst;
+        private final double perSecond;
+
+        SynchronizedBuckets(int burst, double perSecond) {
+            this.burst = burst;
+            this.perSecond = perSecond;
+        }
+
+        synchronized boolean tryAcquire(String key) {
+            long now = System.nanoTime();
+            double[] b = buckets.computeIfAbsent(key, k -> new double[] {burst, now});
+            b[0] = Math.min(burst, b[0] + (now - b[1]) / 1e9 * perSecond);
+            b[1] = now;
+            if (b[0] >= 1) {
+                b[0] -= 1;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Buckets {
+        @Param({"tokenBuckets", "synchronized"})
+        String impl;
+
+        @Param({"1", "100000"})
+        int keys;
+
+        String[] names;
+        TokenBuckets tokenBuckets;
+        SynchronizedBuckets synchronizedBuckets;
+
+        @Setup
+        public void setup() {
+            names = new String[keys];
+            for (int i = 0; i < keys; i++) {
+                names[i] = "10.0." + (i >> 8 & 255) + "." + (i & 255) + "#" + i;
+            }
+            // Rate high enough that buckets refill during the run, so both outcomes are exercised
+            if (impl.equals("tokenBuckets")) {
+                tokenBuckets = new TokenBuckets(1000, 1_000_000, 60_000);
+            } else {
+                synchronizedBuckets = new SynchronizedBuckets(1000, 1_000_000);
+            }
+        }
+
+        boolean tryAcquire() {
+            String key = names[keys == 1 ? 0 : ThreadLocalRandom.current().nextInt(keys)];
+            return tokenBuckets != null ? tokenBuckets.tryAcquire(key) : synchronizedBuckets.tryAcquire(key);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Credentials {
+        @Param({"100000"})
+        int iterations;
+
+        CredentialStore cached;
+        CredentialStore uncached;
+
+        @Setup
+        public void setup() {
+            cached = new CredentialStore(iterations, 60_000, 10_000);
+            cached.setPassword("admin", "1234");
+            cached.verify("admin", "1234");
+            uncached = new CredentialStore(iterations, 0, 10_000);
+            uncached.setPassword("admin", "1234");
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean tryAcquire(Buckets buckets) {
+        return buckets.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean tryAcquireContended(Buckets buckets) {
+        return buckets.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean verifyCached(Credentials credentials) {
+        return credentials.cached.verify("admin", "1234");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean verifyCachedContended(Credentials credentials) {
+        return credentials.cached.verify("admin", "1234");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean verifyHashed(Credentials credentials) {
+        return credentials.uncached.verify("admin", "1234");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean verifyHashedContended(Credentials credentials) {
+        return credentials.uncached.verify("admin", "1234");
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.NoBenchmarksException;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/*
+ * Main-Class of benchmarks.jar. Takes the usual JMH command line and always adds
+ * the GC profiler, so every run reports allocation per operation (gc.alloc.rate.norm)
+ * next to the score. -h, -l, -lp, -lprof and -lrf are passed to JMH's own Main.
+ */
+public class Main {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd;
+        try {
+            cmd = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Error parsing command line: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams()
+                || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmd);
+        boolean hasGc = false;
+        for (ProfilerConfig p : cmd.getProfilers()) {
+            hasGc |= p.getKlass().equals(GCProfiler.class.getName()) || p.getKlass().equals("gc");
+        }
+        if (!hasGc) {
+            options.addProfiler(GCProfiler.class);
+        }
+        // Same reporting as JMH's Main
+        try {
+            new Runner(options.build()).run();
+        } catch (NoBenchmarksException e) {
+            System.err.println("No matching benchmarks. Miss-spelled regexp?");
+            System.err.println("Use EXTRA verbose mode to debug the pattern matching.");
+            System.exit(1);
+        } catch (RunnerException e) {
+            System.err.print("ERROR: ");
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+}
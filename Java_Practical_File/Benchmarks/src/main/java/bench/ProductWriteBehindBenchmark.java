@@ -0,0 +1,42 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * 1000 price updates spread over 'size' products (a few hot products, long tail),
+ * committed one by one the way ProductCRUD does by default, against the same
+ * updates pushed through ProductWriteBehindQueue and flushed at the end.
+ * Runs on an in-memory H2 database; the JDBC URL can be changed with -Dbench.jdbc.url=...
+ * The work itself is in ProductWriteBehindWorkloads (unnamed package).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductWriteBehindBenchmark {
+    @Param({"100", "10000"})
+    int size;
+
+    @Param({"commitPerUpdate", "writeBehindQueue"})
+    String mode;
+
+    Workload workload;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.load("ProductWriteBehindWorkloads", mode, size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object updatePrices() throws Exception {
+        return workload.op();
+    }
+}
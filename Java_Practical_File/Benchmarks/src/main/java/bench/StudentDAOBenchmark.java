@@ -0,0 +1,160 @@
+package bench;
+
+import java.io.*;
+import java.sql.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import controller.StudentCache;
+import controller.StudentDAO;
+import model.Student;
+import util.ConnectionProvider;
+
+/*
+ * StudentDAO CRUD calls against an in-memory H2 database standing in for MySQL.
+ * 'size' is the number of rows seeded into the Student table.
+ * viewStudents streams with the default fetch size; forEachStudentPaged reads 100-row keyset pages.
+ * getStudent looks up skewed IDs (a few hot students, long tail) with and without the student cache.
+ * The NoMetrics cases measure the overhead of the JdbcMetrics wrapping (on in all other cases).
+ * updateMarks runs once with the pool's per-connection statement cache and once without it.
+ * The JDBC URL can be changed with -Dbench.jdbc.url=...
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)   // H2 and the pool take several seconds to reach steady state
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentDAOBenchmark {
+    static final String URL = System.getProperty("bench.jdbc.url", "jdbc:h2:mem:schooldb;DB_CLOSE_DELAY=-1");
+
+    @State(Scope.Thread)
+    public static class Dao {
+        @Param({"100", "10000"})
+        int size;
+
+        int statementCacheSize = 50;
+        int studentCacheSize = 1_000;
+        boolean jdbcMetrics = true;
+
+        Connection con;
+        ConnectionProvider pool;
+        StudentDAO dao;
+        Random random = new Random(42);
+        PrintStream out;
+
+        @Setup
+        public void setup() throws SQLException {
+            con = DriverManager.getConnection(URL, "sa", "");
+            try (Statement st = con.createStatement()) {
+                st.execute("DROP TABLE IF EXISTS Student");
+                st.execute("CREATE TABLE Student (StudentID INT PRIMARY KEY, Name VARCHAR(50), "
+                           + "Department VARCHAR(50), Marks DOUBLE)");
+            }
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?)")) {
+                for (int i = 1; i <= size; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "Student" + i);
+                    ps.setString(3, "CSE");
+                    ps.setDouble(4, 50 + i % 50);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            System.setProperty("db.metrics", String.valueOf(jdbcMetrics));
+            pool = new ConnectionProvider(URL, "sa", "", 1, 4, 5_000, 60_000, 60_000, statementCacheSize);
+            dao = new StudentDAO(pool, studentCacheSize == 0 ? null : new StudentCache(studentCacheSize, 0));
+            // StudentDAO prints a line per call
+            out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            System.setOut(out);
+            pool.close();
+            con.close();
+        }
+
+        // Cubing a uniform number makes low IDs much more likely than high ones
+        int skewedId() {
+            double u = random.nextDouble();
+            return 1 + (int) (u * u * u * size);
+        }
+    }
+
+    public static class NoStatementCache extends Dao {
+        public NoStatementCache() {
+            statementCacheSize = 0;
+        }
+    }
+
+    public static class NoStudentCache extends Dao {
+        public NoStudentCache() {
+            studentCacheSize = 0;
+        }
+    }
+
+    public static class NoStudentCacheNoMetrics extends Dao {
+        public NoStudentCacheNoMetrics() {
+            studentCacheSize = 0;
+            jdbcMetrics = false;
+        }
+    }
+
+    public static class NoMetrics extends Dao {
+        public NoMetrics() {
+            jdbcMetrics = false;
+        }
+    }
+
+    @Benchmark
+    public int addAndDelete(Dao s) throws Exception {
+        int id = s.size + 1;
+        s.dao.addStudent(new Student(id, "New", "ECE", 75));
+        return s.dao.deleteStudent(id);
+    }
+
+    @Benchmark
+    public int updateMarks(Dao s) throws Exception {
+        return s.dao.updateMarks(1 + s.random.nextInt(s.size), s.random.nextInt(100));
+    }
+
+    @Benchmark
+    public int updateMarksNoStatementCache(NoStatementCache s) throws Exception {
+        return s.dao.updateMarks(1 + s.random.nextInt(s.size), s.random.nextInt(100));
+    }
+
+    @Benchmark
+    public Student getStudent(Dao s) throws Exception {
+        return s.dao.getStudent(s.skewedId());
+    }
+
+    @Benchmark
+    public Student getStudentNoCache(NoStudentCache s) throws Exception {
+        return s.dao.getStudent(s.skewedId());
+    }
+
+    @Benchmark
+    public Student getStudentNoCacheNoMetrics(NoStudentCacheNoMetrics s) throws Exception {
+        return s.dao.getStudent(s.skewedId());
+    }
+
+    @Benchmark
+    public StudentDAO viewStudents(Dao s) throws Exception {
+        s.dao.viewStudents();
+        return s.dao;
+    }
+
+    @Benchmark
+    public StudentDAO viewStudentsNoMetrics(NoMetrics s) throws Exception {
+        s.dao.viewStudents();
+        return s.dao;
+    }
+
+    @Benchmark
+    public double forEachStudentPaged(Dao s) throws Exception {
+        double[] sum = new double[1];
+        s.dao.forEachStudent(100, st -> sum[0] += st.getMarks());
+        return sum[0];
+    }
+}
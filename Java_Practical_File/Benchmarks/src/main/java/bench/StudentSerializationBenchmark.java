@@ -0,0 +1,40 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/*
+ * Write + read round-trip of 'size' Student objects: the ObjectOutputStream /
+ * ObjectInputStream path of StudentSerialization against StudentCodec.
+ * The work itself is in StudentSerializationWorkloads (unnamed package).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StudentSerializationBenchmark {
+    @Param({"1", "1000"})
+    int size;
+
+    @Param({"objectStream", "codec"})
+    String format;
+
+    Workload workload;
+
+    @Setup
+    public void setup() throws Exception {
+        workload = Workload.load("StudentSerializationWorkloads", format, size);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        workload.tearDown();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        return workload.op();
+    }
+}
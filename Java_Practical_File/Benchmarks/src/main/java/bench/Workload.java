@@ -0,0 +1,22 @@
+package bench;
+
+/*
+ * One benchmarked operation on code in the unnamed package (EXP-2.2 and
+ * ProductWriteBehindQueue), which a benchmark class in a package cannot name.
+ * Each *Workloads class there has a static create(name) returning them, and
+ * load() finds it by class name when the benchmark's state is set up.
+ */
+public interface Workload {
+    void setup(int size) throws Exception;
+
+    // One operation; the benchmark returns the result so the JIT cannot drop the work
+    Object op() throws Exception;
+
+    default void tearDown() throws Exception {}
+
+    static Workload load(String holder, String name, int size) throws Exception {
+        Workload workload = (Workload) Class.forName(holder).getMethod("create", String.class).invoke(null, name);
+        workload.setup(size);
+        return workload;
+    }
+}
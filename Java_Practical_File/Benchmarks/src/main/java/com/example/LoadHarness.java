@@ -0,0 +1,309 @@
+package com.example;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.catalina.Context;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+
+/*
+ * Load test of the EXP-8 servlets in one JVM: an embedded Tomcat serves WebContent with
+ * its web.xml, backed by in-memory H2 databases seeded with test data, and an HTTP client
+ * sends requests at a fixed rate.
+ *
+ * It lives in the Benchmarks module, which has Tomcat, Jasper and H2 on its classpath and
+ * compiles the EXP-8 servlets in. Run from the Benchmarks folder after mvn package:
+ *
+ *   java -cp target/benchmarks.jar -Dload.rps=500 -Dload.seconds=30 com.example.LoadHarness
+ *
+ * Settings (system properties):
+ *   load.webContent  ../EXP-7,8,9/EXP-8/WebContent
+ *   load.port        0 (any free port)
+ *   load.employees   100000                load.attendance  0 rows seeded
+ *   load.students    1000 (ids used by the attendance posts)
+ *   load.rps         200                   load.seconds     30 (+ load.warmupSeconds 5)
+ *   load.arrivals    poisson | uniform     load.timeoutMillis 10000
+ *   load.mix         login=1,employee=4,employeeList=0.02,attendance=2,loginBad=0
+ *   load.out         load-results-<time>.json
+ *
+ * Open model: requests go out on schedule whether or not earlier ones have answered,
+ * and latency is measured from the scheduled time, so a slow server shows up as
+ * latency instead of as fewer requests. The results (per endpoint: requests,
+ * throughput, errors, status codes, p50/p90/p99/p99.9/max) are printed and written
+ * as JSON so two runs can be compared.
+ */
+public class LoadHarness {
+    interface RequestFactory {
+        HttpRequest create(URI base, ThreadLocalRandom random);
+    }
+
+    static class Endpoint {
+        final String name;
+        final RequestFactory factory;
+        double weight;
+        final JdbcMetrics.Histogram latency = new JdbcMetrics.Histogram();
+        final LongAdder errors = new LongAdder();
+        final ConcurrentHashMap<String, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        Endpoint(String name, RequestFactory factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        void record(long nanos, String status, boolean error) {
+            latency.record(nanos);
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (error) {
+                errors.increment();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String webContent = System.getProperty("load.webContent", "../EXP-7,8,9/EXP-8/WebContent");
+        int employees = Integer.getInteger("load.employees", 100_000);
+        int students = Integer.getInteger("load.students", 1000);
+        int attendance = Integer.getInteger("load.attendance", 0);
+        double rps = Double.parseDouble(System.getProperty("load.rps", "200"));
+        int seconds = Integer.getInteger("load.seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 5);
+        boolean poisson = !"uniform".equals(System.getProperty("load.arrivals", "poisson"));
+        long timeoutMillis = Long.getLong("load.timeoutMillis", 10_000);
+        String mix = System.getProperty("load.mix", "login=1,employee=4,employeeList=0.02,attendance=2,loginBad=0");
+        String out = System.getProperty("load.out", "load-results-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+
+        seed(employees, attendance);
+        // Every request comes from 127.0.0.1 as admin: lift the login throttle unless it was set on purpose
+        setDefault("login.ip.burst", "2000");
+        setDefault("login.ip.perSecond", "1000000");
+        setDefault("login.user.burst", "2000");
+        setDefault("login.user.perSecond", "1000000");
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("load-tomcat").toString());
+        tomcat.setPort(Integer.getInteger("load.port", 0));
+        // Room for the connections the client opens in a burst; with the default (100) extra SYNs
+        // are dropped and retried a second or three later, which shows up as latency
+        tomcat.getConnector().setProperty("acceptCount", "1000");
+        File docBase = new File(webContent).getAbsoluteFile();
+        Context ctx = tomcat.addWebapp("", docBase.getPath());
+        // The project keeps web.xml next to the pages rather than in WEB-INF
+        ((StandardContext) ctx).setAltDDName(new File(docBase, "web.xml").getPath());
+        tomcat.start();
+        URI base = URI.create("http://localhost:" + tomcat.getConnector().getLocalPort() + "/");
+        System.out.println("✅ Tomcat on " + base + " with " + employees + " employees");
+
+        List<Endpoint> endpoints = endpoints(employees, students);
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split("=");
+            Endpoint e = endpoints.stream().filter(x -> x.name.equals(kv[0].trim())).findFirst()
+                                  .orElseThrow(() -> new IllegalArgumentException("unknown endpoint in load.mix: " + kv[0]));
+            e.weight = Double.parseDouble(kv[1].trim());
+        }
+        endpoints.removeIf(e -> e.weight <= 0);
+        double totalWeight = endpoints.stream().mapToDouble(e -> e.weight).sum();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor)
+                                      .connectTimeout(java.time.Duration.ofMillis(timeoutMillis)).build();
+
+        System.out.printf("⏳ %.0f req/s (%s) for %ds after %ds warm-up%n", rps, poisson ? "poisson" : "uniform",
+                          seconds, warmupSeconds);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+        double gapNanos = 1e9 / rps;
+        double next = start;
+        long sent = 0;
+        long maxLagNanos = 0;
+
+        while (next < end) {
+            long scheduled = (long) next;
+            next += poisson ? -Math.log(1 - random.nextDouble()) * gapNanos : gapNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                maxLagNanos = Math.max(maxLagNanos, -wait);
+            }
+
+            Endpoint e = pick(endpoints, totalWeight, random);
+            HttpRequest request = e.factory.create(base, random);
+            boolean measured = scheduled >= measureFrom;
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sent++;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                  .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                  .whenComplete((response, error) -> {
+                      long latency = System.nanoTime() - scheduled;
+                      inFlight.decrementAndGet();
+                      if (!measured) {
+                          return;
+                      }
+                      if (error != null) {
+                          Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                            ? error.getCause() : error;
+                          e.record(latency, cause instanceof TimeoutException ? "timeout" : "ioError", true);
+                      } else {
+                          e.record(latency, String.valueOf(response.statusCode()), response.statusCode() >= 400);
+                      }
+                  });
+        }
+        long drainUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis + 1000);
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(10);
+        }
+
+        String report = report(endpoints, seconds, rps, poisson, warmupSeconds, employees, students, attendance,
+                               sent, maxInFlight.get(), maxLagNanos);
+        Files.write(Paths.get(out), report.getBytes(StandardCharsets.UTF_8));
+        print(endpoints, seconds, maxLagNanos);
+        System.out.println("companydb " + ConnectionProvider.forDatabase("companydb", "root", "password").stats());
+        System.out.println("schooldb " + ConnectionProvider.forDatabase("schooldb", "root", "password").stats());
+        System.out.println("✅ results written to " + out);
+
+        executor.shutdownNow();
+        tomcat.stop();
+        tomcat.destroy();
+        System.exit(0);
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static List<Endpoint> endpoints(int employees, int students) {
+        List<Endpoint> list = new ArrayList<>();
+        list.add(new Endpoint("login", (base, r) -> form(base.resolve("LoginServlet"), "username=admin&password=1234")));
+        list.add(new Endpoint("loginBad", (base, r) ->
+            form(base.resolve("LoginServlet"), "username=user" + r.nextInt(100) + "&password=guess" + r.nextInt())));
+        list.add(new Endpoint("employee", (base, r) ->
+            HttpRequest.newBuilder(base.resolve("EmployeeServlet?empid=" + (1 + r.nextInt(Math.max(1, employees))))).build()));
+        list.add(new Endpoint("employeeList", (base, r) -> HttpRequest.newBuilder(base.resolve("EmployeeServlet")).build()));
+        list.add(new Endpoint("attendance", (base, r) ->
+            form(base.resolve("AttendanceServlet"), "studentId=" + (1 + r.nextInt(Math.max(1, students)))
+                 + "&date=2024-01-" + String.format("%02d", 1 + r.nextInt(28)) + "&status=" + (r.nextInt(10) == 0 ? "Absent" : "Present"))));
+        return list;
+    }
+
+    private static HttpRequest form(URI uri, String body) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/x-www-form-urlencoded")
+                          .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, double totalWeight, ThreadLocalRandom random) {
+        double x = random.nextDouble() * totalWeight;
+        for (Endpoint e : endpoints) {
+            x -= e.weight;
+            if (x < 0) {
+                return e;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    // In-memory databases with the practical's tables, pointed to by the db.* properties ConnectionProvider reads
+    private static void seed(int employees, int attendance) throws SQLException {
+        String company = "jdbc:h2:mem:companydb;DB_CLOSE_DELAY=-1";
+        String school = "jdbc:h2:mem:schooldb;DB_CLOSE_DELAY=-1";
+        for (String db : new String[] {"companydb", "schooldb"}) {
+            setDefault("db." + db + ".url", db.equals("companydb") ? company : school);
+            setDefault("db." + db + ".user", "sa");
+            setDefault("db." + db + ".password", "");
+        }
+        try (Connection con = DriverManager.getConnection(System.getProperty("db.companydb.url"), "sa", "");
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS Employee (EmpID INT PRIMARY KEY, Name VARCHAR(50), Salary DOUBLE)");
+            st.execute("INSERT INTO Employee SELECT X, 'Employee ' || X, 20000 + MOD(X * 7919, 80000) "
+                       + "FROM SYSTEM_RANGE(1, " + employees + ")");
+        }
+        try (Connection con = DriverManager.getConnection(System.getProperty("db.schooldb.url"), "sa", "");
+             Statement st = con.createStatement()) {
+            st.execute("CREATE TABLE IF NOT EXISTS Attendance (ID INT AUTO_INCREMENT PRIMARY KEY, StudentID INT, "
+                       + "Date DATE, Status VARCHAR(10))");
+            if (attendance > 0) {
+                st.execute("INSERT INTO Attendance (StudentID, Date, Status) SELECT MOD(X, 1000) + 1, "
+                           + "DATEADD('DAY', MOD(X, 365), DATE '2023-01-01'), 'Present' FROM SYSTEM_RANGE(1, " + attendance + ")");
+            }
+        }
+    }
+
+    private static void print(List<Endpoint> endpoints, int seconds, long maxLagNanos) {
+        System.out.printf("%-14s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                          "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint e : endpoints) {
+            long n = e.latency.count();
+            System.out.printf("%-14s %9d %9.1f %7.2f%% %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", e.name, n, (double) n / seconds,
+                              n == 0 ? 0.0 : 100.0 * e.errors.sum() / n, ms(e.latency.percentile(0.50)),
+                              ms(e.latency.percentile(0.90)), ms(e.latency.percentile(0.99)),
+                              ms(e.latency.percentile(0.999)), ms(e.latency.percentile(1.0)), e.statuses);
+        }
+        if (maxLagNanos > TimeUnit.MILLISECONDS.toNanos(10)) {
+            System.out.printf("⚠️ the load generator fell up to %.1f ms behind schedule%n", ms(maxLagNanos));
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String report(List<Endpoint> endpoints, int seconds, double rps, boolean poisson, int warmupSeconds,
+                                 int employees, int students, int attendance, long sent, int maxInFlight,
+                                 long maxLagNanos) {
+        StringBuilder json = new StringBuilder(2048);
+        json.append("{\n  \"time\": \"").append(LocalDateTime.now()).append("\",\n");
+        json.append("  \"config\": {\"rps\": ").append(rps).append(", \"arrivals\": \"")
+            .append(poisson ? "poisson" : "uniform").append("\", \"seconds\": ").append(seconds)
+            .append(", \"warmupSeconds\": ").append(warmupSeconds).append(", \"employees\": ").append(employees)
+            .append(", \"students\": ").append(students).append(", \"attendanceSeeded\": ").append(attendance)
+            .append(", \"java\": \"").append(System.getProperty("java.version")).append("\", \"cpus\": ")
+            .append(Runtime.getRuntime().availableProcessors()).append("},\n");
+        json.append("  \"sent\": ").append(sent).append(", \"maxInFlight\": ").append(maxInFlight)
+            .append(", \"maxScheduleLagMs\": ").append(String.format(Locale.ROOT, "%.3f", ms(maxLagNanos))).append(",\n");
+        json.append("  \"endpoints\": [");
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint e = endpoints.get(i);
+            long n = e.latency.count();
+            json.append(i == 0 ? "\n" : ",\n").append("    {\"name\": \"").append(e.name).append("\"")
+                .append(", \"weight\": ").append(e.weight)
+                .append(", \"requests\": ").append(n)
+                .append(", \"throughput\": ").append(String.format(Locale.ROOT, "%.2f", (double) n / seconds))
+                .append(", \"errors\": ").append(e.errors.sum())
+                .append(", \"errorRate\": ").append(String.format(Locale.ROOT, "%.5f", n == 0 ? 0.0 : (double) e.errors.sum() / n));
+            for (String[] p : new String[][] {{"p50", "0.50"}, {"p90", "0.90"}, {"p99", "0.99"}, {"p999", "0.999"}, {"max", "1.0"}}) {
+                json.append(", \"").append(p[0]).append("Ms\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", ms(e.latency.percentile(Double.parseDouble(p[1])))));
+            }
+            json.append(", \"meanMs\": ").append(String.format(Locale.ROOT, "%.3f", n == 0 ? 0.0 : ms(e.latency.totalNanos() / n)));
+            json.append(", \"status\": {");
+            boolean first = true;
+            for (Map.Entry<String, LongAdder> s : new TreeMap<>(e.statuses).entrySet()) {
+                json.append(first ? "" : ", ").append('"').append(s.getKey()).append("\": ").append(s.getValue().sum());
+                first = false;
+            }
+            json.append("}}");
+        }
+        json.append("\n  ],\n  \"pools\": [");
+        AttendanceBulkServlet.quote(json, ConnectionProvider.forDatabase("companydb", "root", "password").stats());
+        json.append(", ");
+        AttendanceBulkServlet.quote(json, ConnectionProvider.forDatabase("schooldb", "root", "password").stats());
+        json.append("]\n}\n");
+        return json.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package com.example;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.*;
+
+/*
+ * Slow clients against the EmployeeServlet full listing, to compare the blocking and
+ * non-blocking modes. Run it against a deployed EXP-8 with a big Employee table, started
+ * with -Demployee.debug=true so the servlet accepts ?listing= and ?stats:
+ *
+ *   java -cp target/benchmarks.jar com.example.SlowClientLoadTest http://localhost:8080/EXP-8 50 20000 blocking 30
+ *   java -cp target/benchmarks.jar com.example.SlowClientLoadTest http://localhost:8080/EXP-8 50 20000 nonblocking 30
+ *
+ * Arguments: base URL, clients, bytes per second each client reads, listing mode, seconds.
+ * Every second it prints the servlet's ?stats (listings in flight, threads inside the
+ * listing code, pool connections in use) and how long an ?empid lookup took meanwhile.
+ * Blocking: one thread and one connection per slow client, and lookups queue for the pool.
+ * Non-blocking: no thread and no connection is held between chunks.
+ */
+public class SlowClientLoadTest {
+    private static final Pattern POOL = Pattern.compile("active=(\\d+) idle=(\\d+) total=(\\d+/\\d+).*timeouts=(\\d+)");
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080/EXP-8";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int bytesPerSecond = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        String mode = args.length > 3 ? args[3] : "nonblocking";
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+
+        URL url = URI.create(base + "/EmployeeServlet?listing=" + mode).toURL();
+        AtomicLong bytes = new AtomicLong();
+        AtomicInteger finished = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger cutOff = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        System.out.println("⏳ " + clients + " clients reading " + url + " at " + bytesPerSecond + " B/s for " + seconds + "s");
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            pool.execute(() -> {
+                try {
+                    if (slowRead(url, bytesPerSecond, deadline, bytes)) {
+                        finished.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } catch (InterruptedIOException e) {
+                    cutOff.incrementAndGet();
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+
+        int probeId = 1;
+        for (int t = 1; System.nanoTime() < deadline; t++) {
+            Thread.sleep(1000);
+            long start = System.nanoTime();
+            // A new id each time so the lookup misses the cache and needs a connection
+            int code = get(URI.create(base + "/EmployeeServlet?empid=" + (probeId++)).toURL(), null);
+            long probeMillis = (System.nanoTime() - start) / 1_000_000;
+
+            StringBuilder stats = new StringBuilder();
+            get(URI.create(base + "/EmployeeServlet?stats").toURL(), stats);
+            System.out.printf("t=%2ds read=%,d B probe=%d (%d ms) | %s%n", t, bytes.get(), code, probeMillis, summary(stats.toString()));
+        }
+
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        System.out.printf("✅ done: %,d bytes read, %d listings finished, %d failed, %d cut off at the deadline%n",
+                          bytes.get(), finished.get(), failed.get(), cutOff.get());
+    }
+
+    // GET the listing over a raw socket with a small receive buffer, reading at most bytesPerSecond.
+    // True if the whole listing arrived with status 200.
+    private static boolean slowRead(URL url, int bytesPerSecond, long deadline, AtomicLong total) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress(url.getHost(), url.getPort() < 0 ? 80 : url.getPort()));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET " + url.getFile() + " HTTP/1.1\r\nHost: " + url.getHost() + "\r\nConnection: close\r\n\r\n")
+                      .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            byte[] buf = new byte[1024];
+            long sleepNanos = TimeUnit.SECONDS.toNanos(1) * buf.length / Math.max(1, bytesPerSecond);
+            boolean ok = false;
+            boolean first = true;
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                if (first) {
+                    ok = new String(buf, 0, Math.min(n, 12), StandardCharsets.US_ASCII).startsWith("HTTP/1.1 200");
+                    first = false;
+                }
+                total.addAndGet(n);
+                if (System.nanoTime() >= deadline) {
+                    throw new InterruptedIOException("deadline");
+                }
+                LockSupport.parkNanos(sleepNanos);
+            }
+            return ok;
+        }
+    }
+
+    private static int get(URL url, StringBuilder body) {
+        try {
+            HttpURLConnection con = (HttpURLConnection) url.openConnection();
+            con.setReadTimeout(60_000);
+            int code = con.getResponseCode();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                     code < 400 ? con.getInputStream() : con.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (body != null) {
+                        body.append(line).append('\n');
+                    }
+                }
+            }
+            return code;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // The interesting numbers from ?stats on one line
+    private static String summary(String stats) {
+        StringBuilder line = new StringBuilder();
+        for (String s : stats.split("\n")) {
+            Matcher m = POOL.matcher(s);
+            if (m.find()) {
+                line.append("pool active=").append(m.group(1)).append(" idle=").append(m.group(2))
+                    .append(" total=").append(m.group(3)).append(" timeouts=").append(m.group(4));
+            } else if (s.startsWith("blockingListings") || s.startsWith("nonBlockingListings")) {
+                line.append(s.replace("Listings inFlight", " inFlight")).append(" | ");
+            }
+        }
+        return line.toString();
+    }
+}
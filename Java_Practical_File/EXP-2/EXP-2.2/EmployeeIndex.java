@@ -0,0 +1,264 @@
+// File: EmployeeIndex.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/*
+ * Primary-key index from employee id to the byte offset of its line in employees.txt.
+ *
+ * The index is saved as a snapshot file that also records how many bytes of the
+ * data file it covers, plus a checksum of the bytes just before that point. On
+ * open the snapshot is loaded and only the lines appended after it are read, so
+ * a restart does not re-parse the whole data file. If the data file was
+ * truncated or rewritten the checksum no longer matches and the index is rebuilt.
+ *
+ * When an id appears more than once the last line wins. Lookups read the line
+ * with one positioned read on a channel kept open until close().
+ */
+public class EmployeeIndex implements Closeable {
+    private static final int MAGIC = 0x45494458; // "EIDX"
+    private static final int VERSION = 1;
+    private static final int FINGERPRINT_BYTES = 4096;
+
+    private final String dataFile;
+    private final String snapshotFile;
+    private final IntLongHashMap offsets = new IntLongHashMap(1024);
+    private long indexedLength;
+    private FileChannel reader;                            // opened by the first lookup
+    private ByteBuffer lineBuffer = ByteBuffer.allocate(128);
+
+    private EmployeeIndex(String dataFile, String snapshotFile) {
+        this.dataFile = dataFile;
+        this.snapshotFile = snapshotFile;
+    }
+
+    public static EmployeeIndex open(String dataFile, String snapshotFile) throws IOException {
+        EmployeeIndex index = new EmployeeIndex(dataFile, snapshotFile);
+        long start = System.nanoTime();
+        boolean loaded = index.loadSnapshot();
+        long tailBytes = new File(dataFile).length() - index.indexedLength;
+        index.catchUp();
+        System.out.printf("Index ready: %d ids, %s, %d tail bytes replayed in %.1f ms%n",
+                          index.size(), loaded ? "snapshot loaded" : "rebuilt",
+                          Math.max(tailBytes, 0), (System.nanoTime() - start) / 1e6);
+        if (!loaded) {
+            index.save();
+        }
+        return index;
+    }
+
+    public int size() {
+        return offsets.size();
+    }
+
+    // Byte offset of the employee's line, or -1 if the id is not indexed
+    public long offsetOf(int id) {
+        return offsets.get(id, -1);
+    }
+
+    // Indexes any complete lines written to the data file since the last call
+    public void catchUp() throws IOException {
+        File file = new File(dataFile);
+        if (!file.exists() || file.length() <= indexedLength) {
+            return;
+        }
+        try (FileInputStream fis = new FileInputStream(file)) {
+            fis.getChannel().position(indexedLength);
+            InputStream in = new BufferedInputStream(fis, 1 << 16);
+
+            long pos = indexedLength;
+            long lineStart = pos;
+            int id = 0;
+            boolean negative = false;
+            boolean inId = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                pos++;
+                if (b == '\n') {
+                    if (!inId) {
+                        offsets.put(negative ? -id : id, lineStart);
+                    }
+                    indexedLength = pos;
+                    lineStart = pos;
+                    id = 0;
+                    negative = false;
+                    inId = true;
+                } else if (inId) {
+                    if (b == ',') {
+                        inId = false;
+                    } else if (b == '-') {
+                        negative = true;
+                    } else if (b >= '0' && b <= '9') {
+                        id = id * 10 + (b - '0');
+                    }
+                }
+            }
+        }
+    }
+
+    // Returns the employee with this id, or null
+    public Employee find(int id) throws IOException {
+        long offset = offsetOf(id);
+        return offset < 0 ? null : readAt(offset);
+    }
+
+    // Returns the employees with lo <= id <= hi, sorted by id
+    public List<Employee> findRange(int lo, int hi) throws IOException {
+        List<Employee> result = new ArrayList<>();
+        if (lo > hi) {
+            return result;
+        }
+        int[] ids;
+        if ((long) hi - lo + 1 <= offsets.size()) {
+            // Narrow range: probe every id in it
+            int n = 0;
+            ids = new int[(int) ((long) hi - lo + 1)];
+            for (long id = lo; id <= hi; id++) {
+                if (offsets.containsKey((int) id)) {
+                    ids[n++] = (int) id;
+                }
+            }
+            ids = Arrays.copyOf(ids, n);
+        } else {
+            // Wide range: walk the table once and sort what matches
+            int[] found = new int[offsets.size()];
+            int[] n = new int[1];
+            offsets.forEach((id, offset) -> {
+                if (id >= lo && id <= hi) {
+                    found[n[0]++] = id;
+                }
+            });
+            ids = Arrays.copyOf(found, n[0]);
+            Arrays.sort(ids);
+        }
+
+        for (int id : ids) {
+            result.add(readAt(offsets.get(id, -1)));
+        }
+        return result;
+    }
+
+    // Reads from 'offset' up to the newline; the buffer only grows for an unusually long line
+    private synchronized Employee readAt(long offset) throws IOException {
+        if (reader == null) {
+            reader = FileChannel.open(Paths.get(dataFile), StandardOpenOption.READ);
+        }
+        lineBuffer.clear();
+        int scanned = 0;
+        while (true) {
+            int n = reader.read(lineBuffer, offset + lineBuffer.position());
+            int end = lineBuffer.position();
+            for (int i = scanned; i < end; i++) {
+                if (lineBuffer.get(i) == '\n') {
+                    return parseLine(i);
+                }
+            }
+            if (n < 0) {
+                return parseLine(end); // last line without a newline
+            }
+            scanned = end;
+            if (!lineBuffer.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(lineBuffer.capacity() * 2);
+                lineBuffer.flip();
+                lineBuffer = bigger.put(lineBuffer);
+            }
+        }
+    }
+
+    private Employee parseLine(int length) {
+        byte[] bytes = lineBuffer.array();
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return Employee.fromString(new String(bytes, 0, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    // Writes the snapshot to a temporary file first so a crash never leaves a half-written index
+    public void save() throws IOException {
+        File tmp = new File(snapshotFile + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(indexedLength);
+            out.writeInt(fingerprint(indexedLength));
+            out.writeInt(offsets.size());
+            IOException[] error = new IOException[1];
+            offsets.forEach((id, offset) -> {
+                try {
+                    out.writeInt(id);
+                    out.writeLong(offset);
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        File target = new File(snapshotFile);
+        if (!tmp.renameTo(target)) {
+            target.delete();
+            if (!tmp.renameTo(target)) {
+                throw new IOException("Could not replace " + snapshotFile);
+            }
+        }
+    }
+
+    private boolean loadSnapshot() throws IOException {
+        File file = new File(snapshotFile);
+        if (!file.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            long length = in.readLong();
+            int fingerprint = in.readInt();
+            if (new File(dataFile).length() < length || fingerprint(length) != fingerprint) {
+                System.out.println("Index snapshot does not match " + dataFile + ", rebuilding");
+                return false;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                offsets.put(in.readInt(), in.readLong());
+            }
+            indexedLength = length;
+            return true;
+        } catch (EOFException e) {
+            offsets.clear();
+            indexedLength = 0;
+            return false;
+        }
+    }
+
+    // CRC32 of the last few KB before 'length', used to notice a rewritten data file
+    private int fingerprint(long length) throws IOException {
+        CRC32 crc = new CRC32();
+        if (length > 0) {
+            int n = (int) Math.min(FINGERPRINT_BYTES, length);
+            byte[] bytes = new byte[n];
+            try (RandomAccessFile raf = new RandomAccessFile(dataFile, "r")) {
+                raf.seek(length - n);
+                raf.readFully(bytes);
+            }
+            crc.update(bytes);
+        }
+        return (int) crc.getValue();
+    }
+}
@@ -1,5 +1,6 @@
-EmployeeManagement.java
+// File: EmployeeManagement.java
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 class Employee {
@@ -30,16 +31,142 @@ class Employee {
 
 public class EmployeeManagement {
     private static final String FILE_NAME = "employees.txt";
+    private static final String INDEX_FILE = "employees.idx";
+    private static final String WAL_FILE = "employees.wal";
+
+    private static EmployeeIndex index;
+    private static EmployeeWal wal;
+    private static FileOutputStream data;
+
+    // Loads the id index on first use (snapshot + tail of the data file)
+    private static EmployeeIndex getIndex() throws IOException {
+        if (index == null) {
+            index = EmployeeIndex.open(FILE_NAME, INDEX_FILE);
+        }
+        return index;
+    }
+
+    /*
+     * New employees go to the write-ahead log first (employees.wal, committed in groups),
+     * together with the offset their line gets in employees.txt, then to employees.txt.
+     * After a crash employees.txt may be missing the last employees, or end in half a
+     * line; open() repairs it from the log. On a clean exit employees.txt is synced and
+     * the log emptied.
+     *
+     * How often the log is forced to disk is set with
+     *   -Demployees.wal.durability=EVERY_WRITE|INTERVAL|OS   (default EVERY_WRITE)
+     *   -Demployees.wal.intervalMillis=N                     (INTERVAL only, default 10)
+     * INTERVAL and OS are faster but can lose the last employees on a power failure.
+     */
+    private static void open() throws IOException {
+        if (wal != null) {
+            return;
+        }
+        Map<Long, Employee> logged = new LinkedHashMap<>();
+        EmployeeWal.replay(WAL_FILE, (emp, position) -> logged.put(position, emp));
+        endWithNewline(!logged.isEmpty());
+        long length = new File(FILE_NAME).length();
+        int replayed = 0;
+        try (FileOutputStream out = new FileOutputStream(FILE_NAME, true)) {
+            for (Map.Entry<Long, Employee> entry : logged.entrySet()) {
+                // A line that starts before the end of employees.txt was written completely
+                if (entry.getKey() < length) {
+                    continue;
+                }
+                byte[] line = (entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                length += line.length;
+                replayed++;
+            }
+            out.getFD().sync();
+        }
+        if (!logged.isEmpty()) {
+            System.out.println("Recovered " + replayed + " of " + logged.size() + " logged employees");
+        }
+        if (index != null) {
+            index.catchUp();
+        }
+        new File(WAL_FILE).delete(); // everything in it is in employees.txt now
+        wal = openWal();
+        data = new FileOutputStream(FILE_NAME, true);
+    }
+
+    private static EmployeeWal openWal() throws IOException {
+        String mode = System.getProperty("employees.wal.durability", "EVERY_WRITE");
+        EmployeeWal.Durability durability;
+        try {
+            durability = EmployeeWal.Durability.valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown employees.wal.durability: " + mode);
+        }
+        return new EmployeeWal(WAL_FILE, durability, Long.getLong("employees.wal.intervalMillis", 10));
+    }
+
+    // A crash while writing employees.txt can leave half a line at the end. That employee is
+    // in the log, so the half line is cut off; without a log it was typed in and is kept.
+    private static void endWithNewline(boolean cut) throws IOException {
+        File file = new File(FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long end = raf.length();
+            while (end > 0) {
+                raf.seek(end - 1);
+                if (raf.read() == '\n') break;
+                end--;
+            }
+            if (end < raf.length()) {
+                if (cut) {
+                    raf.setLength(end);
+                } else {
+                    raf.seek(raf.length());
+                    raf.write('\n');
+                }
+            }
+        }
+    }
+
+    private static void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+            data.getFD().sync();
+            data.close();
+            new File(WAL_FILE).delete();
+            wal = null;
+            data = null;
+        }
+        if (index != null) {
+            index.save();
+            index.close();
+        }
+    }
 
     public static void addEmployee(Employee emp) {
-        try (FileWriter fw = new FileWriter(FILE_NAME, true)) {
-            fw.write(emp.toString() + "\n");
+        try {
+            open(); // recovers and opens the log on first use
+            wal.append(emp, data.getChannel().position()); // durable from here on
+            data.write((emp + "\n").getBytes(StandardCharsets.UTF_8));
             System.out.println("Employee added successfully!");
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            getIndex().catchUp();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    public static Employee findEmployee(int id) throws IOException {
+        return getIndex().find(id);
+    }
+
+    public static List<Employee> findEmployeesInRange(int fromId, int toId) throws IOException {
+        return getIndex().findRange(fromId, toId);
+    }
+
     public static void viewEmployees() {
         try (BufferedReader br = new BufferedReader(new FileReader(FILE_NAME))) {
             String line;
@@ -54,6 +181,12 @@ public class EmployeeManagement {
     }
 
     public static void main(String[] args) {
+        try {
+            open();
+        } catch (IOException e) {
+            System.out.println("Could not open " + FILE_NAME + ": " + e.getMessage());
+            return;
+        }
         Scanner sc = new Scanner(System.in);
         int choice;
 
@@ -61,7 +194,9 @@ public class EmployeeManagement {
             System.out.println("\n--- Employee Management Menu ---");
             System.out.println("1. Add Employee");
             System.out.println("2. View Employees");
-            System.out.println("3. Exit");
+            System.out.println("3. Find Employee by ID");
+            System.out.println("4. Find Employees by ID Range");
+            System.out.println("5. Exit");
             System.out.print("Enter your choice: ");
             choice = sc.nextInt();
             sc.nextLine(); // consume newline
@@ -82,12 +217,44 @@ public class EmployeeManagement {
                     viewEmployees();
                     break;
                 case 3:
+                    System.out.print("Enter ID: ");
+                    int findId = sc.nextInt();
+                    try {
+                        Employee found = findEmployee(findId);
+                        if (found == null) {
+                            System.out.println("Employee not found!");
+                        } else {
+                            System.out.println(found.id + " | " + found.name + " | " + found.salary);
+                        }
+                    } catch (IOException e) {
+                        System.out.println("No employees found!");
+                    }
+                    break;
+                case 4:
+                    System.out.print("Enter From ID: ");
+                    int fromId = sc.nextInt();
+                    System.out.print("Enter To ID: ");
+                    int toId = sc.nextInt();
+                    try {
+                        for (Employee e : findEmployeesInRange(fromId, toId)) {
+                            System.out.println(e.id + " | " + e.name + " | " + e.salary);
+                        }
+                    } catch (IOException e) {
+                        System.out.println("No employees found!");
+                    }
+                    break;
+                case 5:
+                    try {
+                        close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
                     System.out.println("Exiting...");
                     break;
                 default:
                     System.out.println("Invalid choice!");
             }
-        } while (choice != 3);
+        } while (choice != 5);
 
         sc.close();
     }
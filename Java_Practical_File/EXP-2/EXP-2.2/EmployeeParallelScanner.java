@@ -0,0 +1,392 @@
+// File: EmployeeParallelScanner.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * Parallel scan of an employees.txt style file ("id,name,salary" per line).
+ *
+ * The file is cut into byte ranges that end on a line break, every range is
+ * memory-mapped and parsed on the ForkJoin pool straight from the bytes.
+ * No String, String[] or Employee is created per line; the consumer gets the
+ * id, the name bytes and the salary.
+ */
+public class EmployeeParallelScanner {
+    static final long DEFAULT_CHUNK_BYTES = 32L * 1024 * 1024;
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /*
+     * Receives parsed lines. Every ForkJoin task works on its own state object and
+     * the states are merged at the end, so accept() never needs locking.
+     * finish() gets the final state once the whole file is scanned.
+     * The name array is reused: copy it if it has to outlive the call.
+     */
+    interface EmployeeConsumer<S> {
+        S newState();
+        void accept(S state, int id, byte[] name, int nameLength, double salary);
+        S merge(S left, S right);
+
+        default S finish(S state) {
+            return state;
+        }
+    }
+
+    static class SalaryStats {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", total=" + sum + ", min=" + min + ", max=" + max;
+        }
+    }
+
+    // Count, total, min and max salary
+    static EmployeeConsumer<SalaryStats> salaryStats() {
+        return new EmployeeConsumer<SalaryStats>() {
+            public SalaryStats newState() {
+                return new SalaryStats();
+            }
+
+            public void accept(SalaryStats s, int id, byte[] name, int nameLength, double salary) {
+                s.count++;
+                s.sum += salary;
+                if (salary < s.min) s.min = salary;
+                if (salary > s.max) s.max = salary;
+            }
+
+            public SalaryStats merge(SalaryStats a, SalaryStats b) {
+                a.count += b.count;
+                a.sum += b.sum;
+                a.min = Math.min(a.min, b.min);
+                a.max = Math.max(a.max, b.max);
+                return a;
+            }
+        };
+    }
+
+    // Passes on only the employees whose salary lies in [min, max]
+    static <S> EmployeeConsumer<S> salaryBetween(double min, double max, EmployeeConsumer<S> downstream) {
+        return new EmployeeConsumer<S>() {
+            public S newState() {
+                return downstream.newState();
+            }
+
+            public void accept(S state, int id, byte[] name, int nameLength, double salary) {
+                if (salary >= min && salary <= max) {
+                    downstream.accept(state, id, name, nameLength, salary);
+                }
+            }
+
+            public S merge(S left, S right) {
+                return downstream.merge(left, right);
+            }
+
+            public S finish(S state) {
+                return downstream.finish(state);
+            }
+        };
+    }
+
+    // Prints "id | name | salary" lines, like viewEmployees(). Output order between chunks is not kept.
+    static EmployeeConsumer<StringBuilder> printing(PrintStream out) {
+        return new EmployeeConsumer<StringBuilder>() {
+            public StringBuilder newState() {
+                return new StringBuilder(64 * 1024);
+            }
+
+            public void accept(StringBuilder sb, int id, byte[] name, int nameLength, double salary) {
+                sb.append(id).append(" | ")
+                  .append(new String(name, 0, nameLength, StandardCharsets.UTF_8))
+                  .append(" | ").append(salary).append('\n');
+                if (sb.length() > 60 * 1024) {
+                    flush(sb);
+                }
+            }
+
+            public StringBuilder merge(StringBuilder left, StringBuilder right) {
+                flush(left);
+                flush(right);
+                return left;
+            }
+
+            // A file of one chunk is never merged: its lines are still in the buffer
+            public StringBuilder finish(StringBuilder sb) {
+                flush(sb);
+                return sb;
+            }
+
+            private void flush(StringBuilder sb) {
+                synchronized (out) {
+                    out.print(sb);
+                }
+                sb.setLength(0);
+            }
+        };
+    }
+
+    public static <S> S scan(String fileName, EmployeeConsumer<S> consumer) throws IOException {
+        return scan(fileName, consumer, DEFAULT_CHUNK_BYTES, ForkJoinPool.commonPool());
+    }
+
+    public static <S> S scan(String fileName, EmployeeConsumer<S> consumer,
+                             long chunkBytes, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(new File(fileName).toPath())) {
+            long[] bounds = splitOnLines(channel, chunkBytes);
+            if (bounds.length < 2) {
+                return consumer.finish(consumer.newState());
+            }
+            try {
+                return consumer.finish(pool.invoke(new ChunkTask<>(channel, bounds, 0, bounds.length - 1, consumer)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // Returns chunk start offsets plus the file size; every chunk ends right after a '\n'
+    static long[] splitOnLines(FileChannel channel, long chunkBytes) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            bounds.add(start);
+            long end = Math.min(start + chunkBytes, size);
+            // Move the cut forward to just after the next line break
+            search:
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        end += i + 1;
+                        break search;
+                    }
+                }
+                end += n;
+            }
+            start = end;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    static class ChunkTask<S> extends RecursiveTask<S> {
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final EmployeeConsumer<S> consumer;
+
+        ChunkTask(FileChannel channel, long[] bounds, int from, int to, EmployeeConsumer<S> consumer) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected S compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ChunkTask<S> left = new ChunkTask<>(channel, bounds, from, mid, consumer);
+                left.fork();
+                S right = new ChunkTask<>(channel, bounds, mid, to, consumer).compute();
+                return consumer.merge(left.join(), right);
+            }
+            S state = consumer.newState();
+            try {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                     bounds[from], bounds[to] - bounds[from]);
+                parseChunk(chunk, consumer, state);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return state;
+        }
+    }
+
+    static <S> void parseChunk(ByteBuffer buf, EmployeeConsumer<S> consumer, S state) {
+        byte[] name = new byte[64];
+        int pos = 0;
+        int limit = buf.limit();
+        while (pos < limit) {
+            int lineEnd = pos;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int end = lineEnd;
+            if (end > pos && buf.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > pos) {
+                int comma1 = indexOf(buf, ',', pos, end);
+                int comma2 = comma1 < 0 ? -1 : indexOf(buf, ',', comma1 + 1, end);
+                if (comma2 < 0) {
+                    throw new NumberFormatException("Malformed employee line at byte " + pos);
+                }
+                int nameLength = comma2 - comma1 - 1;
+                if (nameLength > name.length) {
+                    name = new byte[Math.max(nameLength, name.length * 2)];
+                }
+                buf.get(comma1 + 1, name, 0, nameLength);
+                consumer.accept(state, parseInt(buf, pos, comma1), name, nameLength,
+                                parseDouble(buf, comma2 + 1, end));
+            }
+            pos = lineEnd + 1;
+        }
+    }
+
+    private static int indexOf(ByteBuffer buf, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == c) return i;
+        }
+        return -1;
+    }
+
+    static int parseInt(ByteBuffer buf, int from, int to) {
+        boolean negative = false;
+        int i = from;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        if (i == to) {
+            throw new NumberFormatException("Empty id at byte " + from);
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Bad id at byte " + from);
+            }
+            value = value * 10 + d;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("Id out of range at byte " + from);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Id out of range at byte " + from);
+        }
+        return (int) value;
+    }
+
+    /*
+     * Fast path for plain decimals such as "52000.0" or "1.25E7": up to 15
+     * significant digits and a power of ten up to 22 give an exactly rounded
+     * result with one multiply or divide. Anything else goes to Double.parseDouble.
+     */
+    static double parseDouble(ByteBuffer buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && b == '0') {
+                    if (seenDot) exponent--;
+                    continue;
+                }
+                if (digits >= 15) {
+                    return slowParse(buf, from, to);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenDot) exponent--;
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return slowParse(buf, from, to);
+        }
+        if (i < to) {
+            byte b = buf.get(i);
+            if (b != 'e' && b != 'E') {
+                return slowParse(buf, from, to);
+            }
+            i++;
+            boolean negativeExp = false;
+            if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                negativeExp = buf.get(i) == '-';
+                i++;
+            }
+            if (i == to) {
+                return slowParse(buf, from, to);
+            }
+            int exp = 0;
+            for (; i < to; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9 || exp > 1000) {
+                    return slowParse(buf, from, to);
+                }
+                exp = exp * 10 + d;
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent >= 0 && exponent <= 22) {
+            value = mantissa * POW10[exponent];
+        } else if (exponent < 0 && exponent >= -22) {
+            value = mantissa / POW10[-exponent];
+        } else {
+            return slowParse(buf, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(ByteBuffer buf, int from, int to) {
+        byte[] text = new byte[to - from];
+        buf.get(from, text);
+        return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+    }
+
+    public static void main(String[] args) {
+        String fileName = args.length > 0 ? args[0] : "employees.txt";
+        try {
+            SalaryStats stats = scan(fileName, salaryStats());
+            System.out.println("All employees: " + stats);
+
+            SalaryStats high = scan(fileName, salaryBetween(100000, Double.MAX_VALUE, salaryStats()));
+            System.out.println("Salary >= 100000: " + high);
+        } catch (IOException e) {
+            System.out.println("No employees found!");
+        }
+    }
+}
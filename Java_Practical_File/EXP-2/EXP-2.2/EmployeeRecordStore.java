@@ -0,0 +1,206 @@
+// File: EmployeeRecordStore.java
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Binary storage engine for Employee records.
+ *
+ * The file starts with a 16 byte header (magic, record size, record count)
+ * followed by fixed-width records:
+ *   id (int) | name length (byte) | name (31 bytes, UTF-8, zero padded) | salary (double)
+ * Names longer than 31 bytes are rejected rather than cut.
+ *
+ * The whole file is memory-mapped, so record N lives at a known offset and can
+ * be read without touching any other record. Not thread-safe.
+ */
+public class EmployeeRecordStore implements Closeable {
+    static final int MAGIC = 0x454D5031; // "EMP1"
+    static final int HEADER_SIZE = 16;
+    static final int NAME_BYTES = 31;
+    static final int RECORD_SIZE = 4 + 1 + NAME_BYTES + 8;
+
+    private static final int COUNT_OFFSET = 8;
+    private static final int GROW_RECORDS = 64 * 1024;
+    private static final long MAX_MAPPED_BYTES = Integer.MAX_VALUE;
+
+    // Called once per record during a scan; the name array is reused between calls
+    interface RecordVisitor {
+        void visit(int slot, int id, byte[] name, int nameLength, double salary);
+    }
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    private int capacity;
+
+    public EmployeeRecordStore(String fileName) throws IOException {
+        file = new RandomAccessFile(fileName, "rw");
+        channel = file.getChannel();
+
+        long size = channel.size();
+        if (size == 0) {
+            map(GROW_RECORDS);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, RECORD_SIZE);
+            buffer.putLong(COUNT_OFFSET, 0);
+        } else {
+            if (size < HEADER_SIZE) {
+                throw new IOException(fileName + " is not an employee record file");
+            }
+            map((int) ((size - HEADER_SIZE) / RECORD_SIZE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_SIZE) {
+                throw new IOException(fileName + " is not an employee record file");
+            }
+            long stored = buffer.getLong(COUNT_OFFSET);
+            if (stored < 0 || stored > capacity) {
+                throw new IOException(fileName + " is not an employee record file");
+            }
+            count = (int) stored;
+        }
+    }
+
+    private void map(int records) throws IOException {
+        long bytes = HEADER_SIZE + (long) records * RECORD_SIZE;
+        if (bytes > MAX_MAPPED_BYTES) {
+            throw new IOException("Record file is full (" + records + " records)");
+        }
+        // Mapping past the end of the file grows it, so appends never reopen the file
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = records;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Appends a record and returns its slot number; IllegalArgumentException if the name does not fit
+    public int append(Employee emp) throws IOException {
+        if (count == capacity) {
+            long grown = Math.min((long) capacity + Math.max(GROW_RECORDS, capacity / 2),
+                                  (MAX_MAPPED_BYTES - HEADER_SIZE) / RECORD_SIZE);
+            if (grown <= capacity) {
+                throw new IOException("Record file is full (" + capacity + " records)");
+            }
+            map((int) grown);
+        }
+
+        byte[] name = emp.name.getBytes(StandardCharsets.UTF_8);
+        if (name.length > NAME_BYTES) {
+            throw new IllegalArgumentException("Employee name longer than " + NAME_BYTES + " bytes: " + emp.name);
+        }
+        int nameLength = name.length;
+
+        int pos = offset(count);
+        buffer.putInt(pos, emp.id);
+        buffer.put(pos + 4, (byte) nameLength);
+        buffer.put(pos + 5, name, 0, nameLength);
+        for (int i = nameLength; i < NAME_BYTES; i++) {
+            buffer.put(pos + 5 + i, (byte) 0);
+        }
+        buffer.putDouble(pos + 5 + NAME_BYTES, emp.salary);
+
+        int slot = count++;
+        buffer.putLong(COUNT_OFFSET, count);
+        return slot;
+    }
+
+    // O(1) read of a single record
+    public Employee read(int slot) {
+        checkSlot(slot);
+        int pos = offset(slot);
+        byte[] name = new byte[buffer.get(pos + 4)];
+        buffer.get(pos + 5, name);
+        return new Employee(buffer.getInt(pos),
+                            new String(name, StandardCharsets.UTF_8),
+                            buffer.getDouble(pos + 5 + NAME_BYTES));
+    }
+
+    public int readId(int slot) {
+        checkSlot(slot);
+        return buffer.getInt(offset(slot));
+    }
+
+    public double readSalary(int slot) {
+        checkSlot(slot);
+        return buffer.getDouble(offset(slot) + 5 + NAME_BYTES);
+    }
+
+    // Visits every record without creating a String or Employee per record
+    public void scan(RecordVisitor visitor) {
+        byte[] name = new byte[NAME_BYTES];
+        for (int slot = 0; slot < count; slot++) {
+            int pos = offset(slot);
+            int nameLength = buffer.get(pos + 4);
+            buffer.get(pos + 5, name, 0, nameLength);
+            visitor.visit(slot, buffer.getInt(pos), name, nameLength,
+                          buffer.getDouble(pos + 5 + NAME_BYTES));
+        }
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= count) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " of " + count);
+        }
+    }
+
+    // Flushes mapped pages to disk
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+        file.close();
+    }
+
+    // Copies every line of an employees.txt style CSV file into the store; bad lines are reported and skipped
+    public static int importCsv(String csvFile, EmployeeRecordStore store) throws IOException {
+        int imported = 0;
+        int lineNumber = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) continue;
+                try {
+                    store.append(Employee.fromString(line));
+                    imported++;
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    System.out.println("Line " + lineNumber + " skipped: " + e.getMessage());
+                }
+            }
+        }
+        store.force();
+        return imported;
+    }
+
+    public static void main(String[] args) {
+        String csvFile = args.length > 0 ? args[0] : "employees.txt";
+        String dataFile = args.length > 1 ? args[1] : "employees.dat";
+
+        try (EmployeeRecordStore store = new EmployeeRecordStore(dataFile)) {
+            int imported = importCsv(csvFile, store);
+            System.out.println("Imported " + imported + " employees into " + dataFile);
+
+            double[] total = new double[1];
+            store.scan((slot, id, name, nameLength, salary) -> total[0] += salary);
+            System.out.println("Records: " + store.size() + ", total salary: " + total[0]);
+
+            if (store.size() > 0) {
+                Employee first = store.read(0);
+                System.out.println("First record: " + first.id + " | " + first.name + " | " + first.salary);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+// File: EmployeeScanBenchmark.java
+import java.io.*;
+import java.util.Random;
+
+/*
+ * Throughput comparison of the original viewEmployees() parsing path
+ * (BufferedReader + Employee.fromString on one thread) against
+ * EmployeeParallelScanner. Both compute the same salary totals.
+ *
+ * Usage: java EmployeeScanBenchmark [file] [lines to generate if the file is missing]
+ */
+public class EmployeeScanBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "employees_bench.txt";
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        File file = new File(fileName);
+        if (!file.exists()) {
+            generate(file, lines);
+        }
+        double mb = file.length() / (1024.0 * 1024.0);
+        System.out.printf("File: %s (%.1f MB)%n", fileName, mb);
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            EmployeeParallelScanner.SalaryStats single = readerScan(fileName);
+            double singleSec = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            EmployeeParallelScanner.SalaryStats parallel =
+                EmployeeParallelScanner.scan(fileName, EmployeeParallelScanner.salaryStats());
+            double parallelSec = (System.nanoTime() - start) / 1e9;
+
+            if (single.count != parallel.count || Math.abs(single.sum - parallel.sum) > 1e-9 * Math.abs(single.sum)) {
+                System.out.println("Results differ! " + single + " vs " + parallel);
+            }
+            System.out.printf("Round %d: fromString %.0f MB/s (%.0f lines/s) | parallel %.0f MB/s (%.0f lines/s) | %.1fx%n",
+                              round, mb / singleSec, single.count / singleSec,
+                              mb / parallelSec, parallel.count / parallelSec, singleSec / parallelSec);
+        }
+    }
+
+    // Same work as viewEmployees(), minus the printing
+    static EmployeeParallelScanner.SalaryStats readerScan(String fileName) throws IOException {
+        EmployeeParallelScanner.SalaryStats stats = new EmployeeParallelScanner.SalaryStats();
+        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                Employee emp = Employee.fromString(line);
+                stats.count++;
+                stats.sum += emp.salary;
+                stats.min = Math.min(stats.min, emp.salary);
+                stats.max = Math.max(stats.max, emp.salary);
+            }
+        }
+        return stats;
+    }
+
+    static void generate(File file, int lines) throws IOException {
+        System.out.println("Generating " + lines + " employees...");
+        Random random = new Random(42);
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file), 1 << 16)) {
+            for (int i = 1; i <= lines; i++) {
+                double salary = 20000 + random.nextInt(180000) + random.nextInt(100) / 100.0;
+                bw.write(new Employee(i, "Employee" + i, salary).toString());
+                bw.write('\n');
+            }
+        }
+    }
+}
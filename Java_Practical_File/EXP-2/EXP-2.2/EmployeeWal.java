@@ -0,0 +1,388 @@
+// File: EmployeeWal.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+/*
+ * Write-ahead log for Employee records with group commit.
+ *
+ * Every record is framed as
+ *   payload length (int) | CRC32 of payload (int) | position (long) | id (int) | salary (double) | name (UTF-8)
+ *
+ * The position is where the caller writes the record in its own data file (-1 if it does
+ * not have one), so recovery can tell which records reached that file before a crash.
+ *
+ * One channel stays open for the life of the log. Appending threads queue their
+ * frames and a single committer thread writes everything that is waiting in one
+ * write and (depending on the durability mode) one force() for the whole batch.
+ * On open the log is scanned and a torn or corrupt tail left by a crash is cut off.
+ *
+ * If a write fails, the batch is cut off the end of the log again so later batches never
+ * follow a torn frame (recovery would stop there and lose them). If that is not possible,
+ * or force() fails, or the committer thread stops for any other reason, every waiting and
+ * later append fails instead of hanging.
+ */
+public class EmployeeWal implements Closeable {
+    enum Durability {
+        EVERY_WRITE, // append() returns after the batch is forced to disk
+        INTERVAL,    // append() returns after the write; the log is forced every N ms
+        OS           // append() returns after the write; the OS decides when to flush
+    }
+
+    static final int FRAME_HEADER = 8;
+    static final int MIN_PAYLOAD = 8 + 4 + 8;
+    static final int MAX_PAYLOAD = 64 * 1024;
+
+    private static class Pending {
+        final byte[] frame;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long intervalMillis;
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition hasWork = lock.newCondition();
+    private List<Pending> pending = new ArrayList<>();
+    private boolean closed;
+    private IOException failure;
+
+    private final Thread committer;
+    private ByteBuffer batchBuffer = ByteBuffer.allocateDirect(256 * 1024);
+    private long lastForce = System.nanoTime();
+    private boolean dirty;
+    private long end; // end of the last complete batch
+
+    // Group commit statistics, written only by the committer thread
+    private volatile long batches;
+    private volatile long records;
+    private volatile long forces;
+
+    public EmployeeWal(String fileName, Durability durability, long intervalMillis) throws IOException {
+        this.durability = durability;
+        this.intervalMillis = intervalMillis;
+        channel = FileChannel.open(new File(fileName).toPath(),
+                                   StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Recovery: keep only the complete, checksummed prefix of the log
+        long validEnd = scan(channel, null);
+        if (validEnd < channel.size()) {
+            System.out.println("WAL: dropping " + (channel.size() - validEnd) + " bytes of torn tail");
+            channel.truncate(validEnd);
+            channel.force(true);
+        }
+        channel.position(validEnd);
+        end = validEnd;
+
+        committer = new Thread(this::commitLoop, "employee-wal-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public EmployeeWal(String fileName) throws IOException {
+        this(fileName, Durability.EVERY_WRITE, 0);
+    }
+
+    // Queues the record and waits until it is committed according to the durability mode
+    public void append(Employee emp) throws IOException {
+        append(emp, -1);
+    }
+
+    public void append(Employee emp, long position) throws IOException {
+        try {
+            appendAsync(emp, position).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for commit");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    public CompletableFuture<Void> appendAsync(Employee emp) {
+        return appendAsync(emp, -1);
+    }
+
+    public CompletableFuture<Void> appendAsync(Employee emp, long position) {
+        Pending p = new Pending(encode(emp, position));
+        lock.lock();
+        try {
+            if (closed || failure != null) {
+                p.done.completeExceptionally(failure != null ? failure : new IOException("WAL is closed"));
+                return p.done;
+            }
+            pending.add(p);
+            hasWork.signal();
+        } finally {
+            lock.unlock();
+        }
+        return p.done;
+    }
+
+    static byte[] encode(Employee emp, long position) {
+        byte[] name = emp.name.getBytes(StandardCharsets.UTF_8);
+        int payload = MIN_PAYLOAD + name.length;
+        if (payload > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Employee name too long");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(FRAME_HEADER + payload);
+        buf.putInt(payload).putInt(0).putLong(position).putInt(emp.id).putDouble(emp.salary).put(name);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), FRAME_HEADER, payload);
+        buf.putInt(4, (int) crc.getValue());
+        return buf.array();
+    }
+
+    private void commitLoop() {
+        List<Pending> batch = Collections.emptyList();
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        if (durability == Durability.INTERVAL && dirty) {
+                            long waitNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis) - (System.nanoTime() - lastForce);
+                            if (waitNanos <= 0) break;
+                            hasWork.awaitNanos(waitNanos);
+                        } else {
+                            hasWork.await();
+                        }
+                    }
+                    if (pending.isEmpty() && closed) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                } finally {
+                    lock.unlock();
+                }
+
+                long batchStart = end;
+                try {
+                    if (!batch.isEmpty()) {
+                        writeBatch(batch);
+                    }
+                } catch (IOException e) {
+                    fail(batch, e);
+                    cutBack(batchStart, e);
+                    continue;
+                }
+                try {
+                    if (durability == Durability.EVERY_WRITE
+                            || (durability == Durability.INTERVAL && dirty
+                                && System.nanoTime() - lastForce >= TimeUnit.MILLISECONDS.toNanos(intervalMillis))) {
+                        force();
+                    }
+                } catch (IOException e) {
+                    // After a failed fsync nobody knows what reached the disk: stop taking appends
+                    fail(batch, e);
+                    cutBack(batchStart, e);
+                    throw e;
+                }
+                for (Pending p : batch) {
+                    p.done.complete(null);
+                }
+            }
+        } catch (Throwable t) {
+            // Interrupted, or an unexpected error: nothing queued now or later can be committed
+            IOException e = t instanceof IOException ? (IOException) t : new IOException("WAL committer stopped", t);
+            fail(batch, e);
+            lock.lock();
+            try {
+                failure = e;
+                fail(pending, e);
+                pending = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void fail(List<Pending> batch, IOException e) {
+        for (Pending p : batch) {
+            p.done.completeExceptionally(e);
+        }
+    }
+
+    // Removes what a failed batch left after 'batchStart', or throws if that is not possible
+    private void cutBack(long batchStart, IOException cause) throws IOException {
+        try {
+            channel.truncate(batchStart);
+            channel.position(batchStart);
+            end = batchStart;
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            throw e;
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws IOException {
+        int bytes = 0;
+        for (Pending p : batch) {
+            bytes += p.frame.length;
+        }
+        if (bytes > batchBuffer.capacity()) {
+            batchBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1);
+        }
+        batchBuffer.clear();
+        for (Pending p : batch) {
+            batchBuffer.put(p.frame);
+        }
+        batchBuffer.flip();
+        while (batchBuffer.hasRemaining()) {
+            channel.write(batchBuffer);
+        }
+        end += bytes;
+        dirty = true;
+        batches++;
+        records += batch.size();
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        dirty = false;
+        lastForce = System.nanoTime();
+        forces++;
+    }
+
+    // Feeds every committed record and its position to the consumer, oldest first
+    public static int replay(String fileName, ObjLongConsumer<Employee> consumer) throws IOException {
+        if (!new File(fileName).exists()) {
+            return 0;
+        }
+        int[] count = new int[1];
+        try (FileChannel ch = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ)) {
+            scan(ch, (emp, position) -> {
+                consumer.accept(emp, position);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    // Reads frames from the start of the log and returns the end offset of the last valid one
+    private static long scan(FileChannel ch, ObjLongConsumer<Employee> consumer) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(2 * (FRAME_HEADER + MAX_PAYLOAD));
+        CRC32 crc = new CRC32();
+        long filePos = 0;
+        long validEnd = 0;
+        buf.limit(0);
+
+        while (true) {
+            if (buf.remaining() < FRAME_HEADER) {
+                filePos = fill(ch, buf, filePos);
+                if (buf.remaining() < FRAME_HEADER) break;
+            }
+            int start = buf.position();
+            int payload = buf.getInt(start);
+            int checksum = buf.getInt(start + 4);
+            if (payload < MIN_PAYLOAD || payload > MAX_PAYLOAD) break;
+
+            if (buf.remaining() < FRAME_HEADER + payload) {
+                filePos = fill(ch, buf, filePos);
+                if (buf.remaining() < FRAME_HEADER + payload) break;
+                start = buf.position();
+            }
+
+            crc.reset();
+            crc.update(buf.array(), start + FRAME_HEADER, payload);
+            if ((int) crc.getValue() != checksum) break;
+
+            if (consumer != null) {
+                long position = buf.getLong(start + FRAME_HEADER);
+                int id = buf.getInt(start + FRAME_HEADER + 8);
+                double salary = buf.getDouble(start + FRAME_HEADER + 12);
+                String name = new String(buf.array(), start + FRAME_HEADER + MIN_PAYLOAD, payload - MIN_PAYLOAD,
+                                         StandardCharsets.UTF_8);
+                consumer.accept(new Employee(id, name, salary), position);
+            }
+            buf.position(start + FRAME_HEADER + payload);
+            validEnd += FRAME_HEADER + payload;
+        }
+        return validEnd;
+    }
+
+    // Moves the unread bytes to the front of the buffer and reads more of the file after them
+    private static long fill(FileChannel ch, ByteBuffer buf, long filePos) throws IOException {
+        buf.compact();
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, filePos);
+            if (n <= 0) break;
+            filePos += n;
+        }
+        buf.flip();
+        return filePos;
+    }
+
+    public String stats() {
+        return "records=" + records + ", batches=" + batches + ", forces=" + forces
+               + ", avg batch=" + (batches == 0 ? 0 : records / batches);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            hasWork.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    // Bulk load benchmark: java EmployeeWal [threads] [records per thread] [EVERY_WRITE|INTERVAL|OS]
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        Durability mode = args.length > 2 ? Durability.valueOf(args[2]) : Durability.EVERY_WRITE;
+        String fileName = "employees-bench.wal"; // not the log EmployeeManagement uses
+
+        int recovered = replay(fileName, (emp, position) -> { });
+        System.out.println("Recovered " + recovered + " employees from " + fileName);
+
+        try (EmployeeWal wal = new EmployeeWal(fileName, mode, 10)) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int base = recovered + t * perThread;
+                futures.add(pool.submit(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        wal.append(new Employee(base + i, "Employee" + (base + i), 30000 + i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+
+            System.out.printf("%s: %d inserts in %.2f s (%.0f inserts/s)%n",
+                              mode, threads * perThread, seconds, threads * perThread / seconds);
+            System.out.println(wal.stats());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+// File: IntLongHashMap.java
+import java.util.Arrays;
+
+/*
+ * Open-addressing hash map from int keys to long values with linear probing.
+ * Keys and values live in two primitive arrays, so there is no boxing and no
+ * entry object per mapping. Not thread-safe.
+ */
+public class IntLongHashMap {
+    interface EntryVisitor {
+        void visit(int key, long value);
+    }
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntLongHashMap() {
+        this(16);
+    }
+
+    public IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the value for key, or missingValue if the key is absent
+    public long get(int key, long missingValue) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public void put(int key, long value) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldUsed[j]) {
+                int i = slot(oldKeys[j]);
+                while (used[i]) {
+                    i = (i + 1) & mask;
+                }
+                used[i] = true;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+}
@@ -0,0 +1,326 @@
+// File: StudentCodec.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/*
+ * Compact binary codec for Student, as a replacement for Java serialization.
+ *
+ * Batch layout:
+ *   schema version (byte) | record count (varint) | records...
+ * Record layout (schema 1):
+ *   name (string) | age (zigzag varint) | course (string)
+ * A string is a varint of (UTF-8 length + 1) followed by the bytes; 0 means null.
+ *
+ * A codec instance keeps scratch buffers between calls, so use one per thread.
+ */
+public class StudentCodec {
+    static final byte SCHEMA_VERSION = 1;
+
+    private static final int RECENT_COURSES = 16;
+
+    private byte[] scratch = new byte[4096];
+
+    // Recently decoded course strings, reused when the same bytes come up again
+    private final String[] recentCourses = new String[RECENT_COURSES];
+    private final byte[][] recentCourseBytes = new byte[RECENT_COURSES][];
+    private int nextRecent;
+
+    // ---------- Writing ----------
+
+    public void writeBatch(List<Student> students, ByteBuffer out) {
+        out.put(SCHEMA_VERSION);
+        putVarint(out, students.size());
+        for (Student s : students) {
+            putString(out, s.getName());
+            putVarint(out, zigzag(s.getAge()));
+            putString(out, s.getCourse());
+        }
+    }
+
+    public void writeBatch(List<Student> students, OutputStream out) throws IOException {
+        int pos = 0;
+        scratch[pos++] = SCHEMA_VERSION;
+        pos = putVarint(scratch, pos, students.size());
+        for (Student s : students) {
+            // A record never needs more than 3 bytes per char plus three 5-byte varints
+            int worst = 15 + 3 * (length(s.getName()) + length(s.getCourse()));
+            if (pos + worst > scratch.length) {
+                if (pos > 0) {
+                    out.write(scratch, 0, pos);
+                    pos = 0;
+                }
+                if (worst > scratch.length) {
+                    scratch = new byte[worst];
+                }
+            }
+            pos = putString(scratch, pos, s.getName());
+            pos = putVarint(scratch, pos, zigzag(s.getAge()));
+            pos = putString(scratch, pos, s.getCourse());
+        }
+        out.write(scratch, 0, pos);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void putVarint(ByteBuffer out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static int putVarint(byte[] out, int pos, int v) {
+        while ((v & ~0x7F) != 0) {
+            out[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    private void putString(ByteBuffer out, String s) {
+        if (s == null) {
+            out.put((byte) 0);
+            return;
+        }
+        int worst = 3 * s.length();
+        if (worst > scratch.length) {
+            scratch = new byte[worst];
+        }
+        int n = encodeUtf8(s, scratch, 0);
+        putVarint(out, n + 1);
+        out.put(scratch, 0, n);
+    }
+
+    private static int putString(byte[] out, int pos, String s) {
+        if (s == null) {
+            out[pos++] = 0;
+            return pos;
+        }
+        // Reserve one byte for the length; most strings are shorter than 127 bytes
+        int start = pos + 1;
+        int n = encodeUtf8(s, out, start);
+        int lengthBytes = varintSize(n + 1);
+        if (lengthBytes > 1) {
+            System.arraycopy(out, start, out, pos + lengthBytes, n);
+        }
+        putVarint(out, pos, n + 1);
+        return pos + lengthBytes + n;
+    }
+
+    private static int varintSize(int v) {
+        int size = 1;
+        while ((v & ~0x7F) != 0) {
+            v >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // Hand-written UTF-8 encoder so no byte[] is allocated per string
+    private static int encodeUtf8(String s, byte[] out, int pos) {
+        int start = pos;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                out[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                out[pos++] = (byte) (0xC0 | (c >> 6));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                       && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                out[pos++] = (byte) (0xF0 | (cp >> 18));
+                out[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                out[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out[pos++] = '?';
+            } else {
+                out[pos++] = (byte) (0xE0 | (c >> 12));
+                out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos - start;
+    }
+
+    // ---------- Reading ----------
+
+    // Reads a batch into new Student objects
+    public List<Student> readBatch(ByteBuffer in) throws IOException {
+        List<Student> out = new ArrayList<>();
+        readBatch(in, out);
+        return out;
+    }
+
+    /*
+     * Reads a batch reusing the Student objects already in 'into': element i is
+     * overwritten in place and new objects are only added when the list is too short.
+     * Extra elements are removed. Returns the number of records read.
+     */
+    public int readBatch(ByteBuffer in, List<Student> into) throws IOException {
+        checkVersion(in.get());
+        int count = getVarint(in);
+        for (int i = 0; i < count; i++) {
+            Student s = reuse(into, i);
+            s.setName(getString(in, false));
+            s.setAge(unzigzag(getVarint(in)));
+            s.setCourse(getString(in, true));
+        }
+        trim(into, count);
+        return count;
+    }
+
+    public List<Student> readBatch(InputStream in) throws IOException {
+        List<Student> out = new ArrayList<>();
+        readBatch(in, out);
+        return out;
+    }
+
+    // Stream version of readBatch(ByteBuffer, List); wrap 'in' in a BufferedInputStream
+    public int readBatch(InputStream in, List<Student> into) throws IOException {
+        int version = in.read();
+        if (version < 0) {
+            throw new EOFException();
+        }
+        checkVersion((byte) version);
+        int count = getVarint(in);
+        for (int i = 0; i < count; i++) {
+            Student s = reuse(into, i);
+            s.setName(getString(in, false));
+            s.setAge(unzigzag(getVarint(in)));
+            s.setCourse(getString(in, true));
+        }
+        trim(into, count);
+        return count;
+    }
+
+    private static Student reuse(List<Student> into, int i) {
+        if (i < into.size()) {
+            return into.get(i);
+        }
+        Student s = new Student();
+        into.add(s);
+        return s;
+    }
+
+    private static void trim(List<Student> into, int count) {
+        while (into.size() > count) {
+            into.remove(into.size() - 1);
+        }
+    }
+
+    private static void checkVersion(byte version) throws IOException {
+        if (version != SCHEMA_VERSION) {
+            throw new IOException("Unsupported Student schema version " + version);
+        }
+    }
+
+    private static int getVarint(ByteBuffer in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int getVarint(InputStream in) throws IOException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            v |= (b & 0x7F) << shift;
+            if (b < 0x80) {
+                return v;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private String getString(ByteBuffer in, boolean lowCardinality) throws IOException {
+        int n = getVarint(in) - 1;
+        if (n < 0) {
+            return null;
+        }
+        if (n > scratch.length) {
+            scratch = new byte[n];
+        }
+        in.get(scratch, 0, n);
+        return decode(n, lowCardinality);
+    }
+
+    private String getString(InputStream in, boolean lowCardinality) throws IOException {
+        int n = getVarint(in) - 1;
+        if (n < 0) {
+            return null;
+        }
+        if (n > scratch.length) {
+            scratch = new byte[n];
+        }
+        int read = 0;
+        while (read < n) {
+            int r = in.read(scratch, read, n - read);
+            if (r < 0) {
+                throw new EOFException();
+            }
+            read += r;
+        }
+        return decode(n, lowCardinality);
+    }
+
+    // Course names repeat a lot, so the last few decoded values are handed out again
+    private String decode(int n, boolean lowCardinality) {
+        if (!lowCardinality) {
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < RECENT_COURSES; i++) {
+            byte[] bytes = recentCourseBytes[i];
+            if (bytes != null && bytes.length == n
+                    && Arrays.equals(bytes, 0, n, scratch, 0, n)) {
+                return recentCourses[i];
+            }
+        }
+        String s = new String(scratch, 0, n, StandardCharsets.UTF_8);
+        recentCourseBytes[nextRecent] = Arrays.copyOf(scratch, n);
+        recentCourses[nextRecent] = s;
+        nextRecent = (nextRecent + 1) % RECENT_COURSES;
+        return s;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Student> students = Arrays.asList(
+            new Student("Alice", 20, "Computer Science"),
+            new Student("Bob", 21, "Mechanical"),
+            new Student("Chloé", 19, "Computer Science"));
+
+        StudentCodec codec = new StudentCodec();
+        ByteBuffer buf = ByteBuffer.allocate(1024);
+        codec.writeBatch(students, buf);
+        buf.flip();
+        System.out.println("Encoded " + students.size() + " students in " + buf.remaining() + " bytes");
+
+        for (Student s : codec.readBatch(buf)) {
+            s.display();
+        }
+    }
+}
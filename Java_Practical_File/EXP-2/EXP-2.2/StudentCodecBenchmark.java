@@ -0,0 +1,76 @@
+// File: StudentCodecBenchmark.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/*
+ * Size and speed of a Student round-trip: ObjectOutputStream/ObjectInputStream
+ * (as in StudentSerialization) against StudentCodec, with and without object reuse.
+ *
+ * Usage: java StudentCodecBenchmark [students]
+ */
+public class StudentCodecBenchmark {
+    private static final int ROUNDS = 5;
+    private static final String[] COURSES = {
+        "Computer Science", "Mechanical", "Civil", "Electrical", "Electronics", "Biotechnology"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            students.add(new Student("Student" + i, 17 + random.nextInt(10), COURSES[random.nextInt(COURSES.length)]));
+        }
+
+        StudentCodec codec = new StudentCodec();
+        ByteBuffer buf = ByteBuffer.allocate(64 * count + 16);
+        List<Student> reused = new ArrayList<>();
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            // Java serialization
+            long start = System.nanoTime();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                for (Student s : students) {
+                    oos.writeObject(s);
+                }
+            }
+            long serialWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                for (int i = 0; i < count; i++) {
+                    ois.readObject();
+                }
+            }
+            long serialRead = System.nanoTime() - start;
+
+            // Codec over a ByteBuffer
+            start = System.nanoTime();
+            buf.clear();
+            codec.writeBatch(students, buf);
+            buf.flip();
+            long codecWrite = System.nanoTime() - start;
+            int codecSize = buf.remaining();
+
+            start = System.nanoTime();
+            List<Student> decoded = codec.readBatch(buf);
+            long codecRead = System.nanoTime() - start;
+
+            buf.rewind();
+            start = System.nanoTime();
+            codec.readBatch(buf, reused);
+            long codecReuseRead = System.nanoTime() - start;
+
+            if (decoded.size() != count || reused.size() != count) {
+                System.out.println("Decoded count mismatch!");
+            }
+
+            System.out.printf("Round %d: serialization %d bytes, write %.0f ms, read %.0f ms | "
+                              + "codec %d bytes (%.1fx smaller), write %.0f ms, read %.0f ms, read+reuse %.0f ms%n",
+                              round, bytes.size(), serialWrite / 1e6, serialRead / 1e6,
+                              codecSize, (double) bytes.size() / codecSize,
+                              codecWrite / 1e6, codecRead / 1e6, codecReuseRead / 1e6);
+        }
+    }
+}
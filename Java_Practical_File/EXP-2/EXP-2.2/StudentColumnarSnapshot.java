@@ -0,0 +1,399 @@
+// File: StudentColumnarSnapshot.java
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/*
+ * Columnar snapshot file for Student records, for jobs that only need one or
+ * two fields instead of a full object per record (as with student.ser).
+ *
+ * Rows are cut into blocks of BLOCK_ROWS; each column stores its blocks one after another:
+ *   name   - length-prefixed UTF-8 strings
+ *   age    - bit-packed (age - block min)
+ *   course - bit-packed codes into a sorted dictionary (code 0 = null)
+ * Every block records its row count and min/max value (the code for course),
+ * so a reader can map a single column and skip blocks that cannot match.
+ *
+ * File layout:
+ *   header  : magic (int) | version (byte) | row count (int) | rows per block (int)
+ *   column data
+ *   footer  : dictionary | block directory per column
+ *   trailer : footer offset (long) | magic (int)
+ */
+public class StudentColumnarSnapshot {
+    static final int MAGIC = 0x53434F4C; // "SCOL"
+    static final byte VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+
+    static final int NAME = 0;
+    static final int AGE = 1;
+    static final int COURSE = 2;
+    private static final int COLUMNS = 3;
+
+    // Decides from a block's min/max whether it can contain matching rows
+    interface BlockFilter {
+        boolean mightMatch(int min, int max);
+    }
+
+    interface IntColumnVisitor {
+        void visit(int row, int value);
+    }
+
+    // ---------- Writer ----------
+
+    public static void write(List<Student> students, String fileName) throws IOException {
+        write(students, fileName, BLOCK_ROWS);
+    }
+
+    public static void write(List<Student> students, String fileName, int blockRows) throws IOException {
+        // Sorted dictionary, so code order matches string order and min/max on codes is meaningful
+        TreeSet<String> distinct = new TreeSet<>();
+        for (Student s : students) {
+            if (s.getCourse() != null) distinct.add(s.getCourse());
+        }
+        List<String> dictionary = new ArrayList<>(distinct);
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < dictionary.size(); i++) {
+            codes.put(dictionary.get(i), i + 1);
+        }
+
+        int rows = students.size();
+        int blocks = (rows + blockRows - 1) / blockRows;
+        long[][] offsets = new long[COLUMNS][blocks];
+        int[][] lengths = new int[COLUMNS][blocks];
+        int[][] mins = new int[COLUMNS][blocks];
+        int[][] maxs = new int[COLUMNS][blocks];
+        byte[][] widths = new byte[COLUMNS][blocks];
+
+        try (FileOutputStream fos = new FileOutputStream(fileName);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(rows);
+            out.writeInt(blockRows);
+            long pos = 13;
+
+            int[] values = new int[blockRows];
+            for (int col = 0; col < COLUMNS; col++) {
+                for (int b = 0; b < blocks; b++) {
+                    int from = b * blockRows;
+                    int n = Math.min(blockRows, rows - from);
+                    byte[] data;
+                    if (col == NAME) {
+                        ByteArrayOutputStream names = new ByteArrayOutputStream();
+                        for (int i = 0; i < n; i++) {
+                            String name = students.get(from + i).getName();
+                            byte[] bytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+                            writeVarint(names, bytes == null ? 0 : bytes.length + 1);
+                            if (bytes != null) names.write(bytes, 0, bytes.length);
+                        }
+                        data = names.toByteArray();
+                    } else {
+                        int min = Integer.MAX_VALUE;
+                        int max = Integer.MIN_VALUE;
+                        for (int i = 0; i < n; i++) {
+                            Student s = students.get(from + i);
+                            int v = col == AGE ? s.getAge()
+                                    : s.getCourse() == null ? 0 : codes.get(s.getCourse());
+                            values[i] = v;
+                            min = Math.min(min, v);
+                            max = Math.max(max, v);
+                        }
+                        int width = 64 - Long.numberOfLeadingZeros((long) max - min);
+                        data = pack(values, n, min, width);
+                        mins[col][b] = min;
+                        maxs[col][b] = max;
+                        widths[col][b] = (byte) width;
+                    }
+                    out.write(data);
+                    offsets[col][b] = pos;
+                    lengths[col][b] = data.length;
+                    pos += data.length;
+                }
+            }
+
+            long footer = pos;
+            out.writeInt(dictionary.size());
+            for (String course : dictionary) {
+                out.writeUTF(course);
+            }
+            for (int col = 0; col < COLUMNS; col++) {
+                out.writeInt(blocks);
+                for (int b = 0; b < blocks; b++) {
+                    out.writeLong(offsets[col][b]);
+                    out.writeInt(lengths[col][b]);
+                    out.writeInt(mins[col][b]);
+                    out.writeInt(maxs[col][b]);
+                    out.writeByte(widths[col][b]);
+                }
+            }
+            out.writeLong(footer);
+            out.writeInt(MAGIC);
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    // Packs (value - base) into 'width' bits each, least significant bit first
+    static byte[] pack(int[] values, int n, int base, int width) {
+        byte[] out = new byte[(int) (((long) n * width + 7) / 8)];
+        long bitPos = 0;
+        for (int i = 0; i < n; i++) {
+            long v = (long) values[i] - base;
+            for (int bit = 0; bit < width; bit++, bitPos++) {
+                if (((v >>> bit) & 1) != 0) {
+                    out[(int) (bitPos >>> 3)] |= (byte) (1 << (bitPos & 7));
+                }
+            }
+        }
+        return out;
+    }
+
+    // ---------- Reader ----------
+
+    public static class Reader implements Closeable {
+        private final FileChannel channel;
+        private final int rows;
+        private final int blockRows;
+        private final String[] dictionary; // index = code, code 0 = null
+        private final long[][] offsets = new long[COLUMNS][];
+        private final int[][] lengths = new int[COLUMNS][];
+        private final int[][] mins = new int[COLUMNS][];
+        private final int[][] maxs = new int[COLUMNS][];
+        private final byte[][] widths = new byte[COLUMNS][];
+        private final MappedByteBuffer[] mapped = new MappedByteBuffer[COLUMNS];
+
+        // Blocks read and skipped since the reader was opened
+        private long blocksRead;
+        private long blocksSkipped;
+
+        public Reader(String fileName) throws IOException {
+            channel = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ);
+            long size = channel.size();
+            ByteBuffer head = ByteBuffer.allocate(13);
+            channel.read(head, 0);
+            ByteBuffer tail = ByteBuffer.allocate(12);
+            channel.read(tail, size - 12);
+            if (head.getInt(0) != MAGIC || tail.getInt(8) != MAGIC) {
+                throw new IOException(fileName + " is not a student snapshot");
+            }
+            if (head.get(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + head.get(4));
+            }
+            rows = head.getInt(5);
+            blockRows = head.getInt(9);
+
+            long footer = tail.getLong(0);
+            ByteBuffer meta = ByteBuffer.allocate((int) (size - 12 - footer));
+            channel.read(meta, footer);
+            meta.flip();
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(meta.array(), 0, meta.limit()));
+
+            int dictSize = in.readInt();
+            dictionary = new String[dictSize + 1];
+            for (int i = 1; i <= dictSize; i++) {
+                dictionary[i] = in.readUTF();
+            }
+            for (int col = 0; col < COLUMNS; col++) {
+                int blocks = in.readInt();
+                offsets[col] = new long[blocks];
+                lengths[col] = new int[blocks];
+                mins[col] = new int[blocks];
+                maxs[col] = new int[blocks];
+                widths[col] = new byte[blocks];
+                for (int b = 0; b < blocks; b++) {
+                    offsets[col][b] = in.readLong();
+                    lengths[col][b] = in.readInt();
+                    mins[col][b] = in.readInt();
+                    maxs[col][b] = in.readInt();
+                    widths[col][b] = in.readByte();
+                }
+            }
+        }
+
+        public int rowCount() {
+            return rows;
+        }
+
+        public String blockStats() {
+            return "blocks read=" + blocksRead + ", skipped=" + blocksSkipped;
+        }
+
+        // Maps only the byte range of one column, the first time it is needed
+        private MappedByteBuffer column(int col) throws IOException {
+            if (mapped[col] == null && offsets[col].length > 0) {
+                int last = offsets[col].length - 1;
+                long start = offsets[col][0];
+                long end = offsets[col][last] + lengths[col][last];
+                mapped[col] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            return mapped[col];
+        }
+
+        private int rowsIn(int block) {
+            return Math.min(blockRows, rows - block * blockRows);
+        }
+
+        // Visits every row whose value passes 'test', skipping blocks rejected by 'filter'
+        public void scanInts(int col, BlockFilter filter, IntPredicate test, IntColumnVisitor visitor) throws IOException {
+            if (col == NAME) {
+                throw new IllegalArgumentException("name is not an int column");
+            }
+            MappedByteBuffer buf = column(col);
+            for (int b = 0; b < offsets[col].length; b++) {
+                if (!filter.mightMatch(mins[col][b], maxs[col][b])) {
+                    blocksSkipped++;
+                    continue;
+                }
+                blocksRead++;
+                int base = (int) (offsets[col][b] - offsets[col][0]);
+                int width = widths[col][b];
+                int min = mins[col][b];
+                int n = rowsIn(b);
+                for (int i = 0; i < n; i++) {
+                    int v = min + unpack(buf, base, (long) i * width, width);
+                    if (test.test(v)) {
+                        visitor.visit(b * blockRows + i, v);
+                    }
+                }
+            }
+        }
+
+        public void scanAge(int minAge, int maxAge, IntColumnVisitor visitor) throws IOException {
+            scanInts(AGE, (min, max) -> max >= minAge && min <= maxAge,
+                     v -> v >= minAge && v <= maxAge, visitor);
+        }
+
+        // Visits the rows whose course equals 'course'
+        public void scanCourse(String course, IntColumnVisitor visitor) throws IOException {
+            int code = codeOf(course);
+            if (code < 0) {
+                return;
+            }
+            scanInts(COURSE, (min, max) -> code >= min && code <= max, v -> v == code, visitor);
+        }
+
+        public Map<String, Integer> countByCourse() throws IOException {
+            int[] counts = new int[dictionary.length];
+            scanInts(COURSE, (min, max) -> true, v -> true, (row, code) -> counts[code]++);
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] > 0) result.put(dictionary[code], counts[code]);
+            }
+            return result;
+        }
+
+        // Dictionary code of a course, 0 for null, -1 if the course never occurs
+        public int codeOf(String course) {
+            if (course == null) {
+                return 0;
+            }
+            int i = Arrays.binarySearch(dictionary, 1, dictionary.length, course);
+            return i < 0 ? -1 : i;
+        }
+
+        public String course(int code) {
+            return dictionary[code];
+        }
+
+        // Names for the given rows (ascending); only blocks that hold one of them are decoded
+        public String[] namesOf(int[] sortedRows) throws IOException {
+            String[] names = new String[sortedRows.length];
+            MappedByteBuffer buf = column(NAME);
+            byte[] scratch = new byte[256];
+            int k = 0;
+            while (k < sortedRows.length) {
+                int b = sortedRows[k] / blockRows;
+                blocksRead++;
+                int pos = (int) (offsets[NAME][b] - offsets[NAME][0]);
+                int row = b * blockRows;
+                int end = row + rowsIn(b);
+                for (; row < end && k < sortedRows.length; row++) {
+                    int len = 0;
+                    int shift = 0;
+                    byte x;
+                    do {
+                        x = buf.get(pos++);
+                        len |= (x & 0x7F) << shift;
+                        shift += 7;
+                    } while (x < 0);
+                    if (row == sortedRows[k]) {
+                        if (len > 0) {
+                            if (len - 1 > scratch.length) scratch = new byte[len - 1];
+                            buf.get(pos, scratch, 0, len - 1);
+                            names[k] = new String(scratch, 0, len - 1, StandardCharsets.UTF_8);
+                        }
+                        k++;
+                    }
+                    pos += Math.max(len - 1, 0);
+                }
+            }
+            return names;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    static int unpack(ByteBuffer buf, int base, long bitPos, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        int index = base + (int) (bitPos >>> 3);
+        int shift = (int) (bitPos & 7);
+        int bytes = (shift + width + 7) >>> 3;
+        long word = 0;
+        for (int k = 0; k < bytes; k++) {
+            word |= (buf.get(index + k) & 0xFFL) << (8 * k);
+        }
+        return (int) ((word >>> shift) & ((1L << width) - 1));
+    }
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "students.col";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        String[] courses = { "Biotechnology", "Civil", "Computer Science", "Electrical", "Mechanical" };
+        Random random = new Random(42);
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Students arrive grouped by course, as in an admission export
+            String course = courses[(int) ((long) i * courses.length / count)];
+            students.add(new Student("Student" + i, 17 + random.nextInt(8), course));
+        }
+        write(students, fileName);
+        System.out.println("Wrote " + count + " students, " + new File(fileName).length() + " bytes");
+
+        try (Reader reader = new Reader(fileName)) {
+            System.out.println("Students per course: " + reader.countByCourse());
+
+            int[] matches = new int[1];
+            int[] firstRows = new int[3];
+            reader.scanCourse("Computer Science", (row, code) -> {
+                if (matches[0] < firstRows.length) firstRows[matches[0]] = row;
+                matches[0]++;
+            });
+            System.out.println("Computer Science: " + matches[0] + " students (" + reader.blockStats() + ")");
+            System.out.println("First of them: " + Arrays.toString(reader.namesOf(Arrays.copyOf(firstRows, Math.min(matches[0], firstRows.length)))));
+
+            int[] teens = new int[1];
+            reader.scanAge(17, 18, (row, age) -> teens[0]++);
+            System.out.println("Aged 17-18: " + teens[0]);
+        }
+    }
+}
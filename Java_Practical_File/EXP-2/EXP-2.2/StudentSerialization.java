@@ -6,12 +6,22 @@ class Student implements Serializable {
     private int age;
     private String course;
 
+    public Student() {}
+
     public Student(String name, int age, String course) {
         this.name = name;
         this.age = age;
         this.course = course;
     }
 
+    // Getters and setters (used by StudentCodec)
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public int getAge() { return age; }
+    public void setAge(int age) { this.age = age; }
+    public String getCourse() { return course; }
+    public void setCourse(String course) { this.course = course; }
+
     public void display() {
         System.out.println("Name: " + name + ", Age: " + age + ", Course: " + course);
     }
@@ -0,0 +1,469 @@
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.*;
+import util.ConnectionProvider;
+
+/*
+ * Write-behind queue for ProductCRUD.
+ *
+ * Inserts, price updates and deletes are queued and written by a background
+ * thread in one transaction (JDBC batches) every intervalMillis, or as soon as
+ * flushSize changes are pending. Changes to the same ProductID are merged while
+ * they wait: only the last price is written, and a delete makes any later update
+ * of that product a no-op. New products have no ID yet, so inserts are never merged.
+ *
+ * At most capacity changes wait at a time, counting the batch being written; a caller
+ * that would go over it blocks until the flush is done. close() writes whatever is
+ * still pending.
+ *
+ * When a batch fails its changes are tried one by one, so a single bad change (say a
+ * constraint violation) does not hold back the rest. A change that fails on its own
+ * MAX_ATTEMPTS times is dropped and reported. If the database cannot be reached at all
+ * nothing is counted against the changes; they wait for the next flush.
+ */
+public class ProductWriteBehindQueue implements AutoCloseable {
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static class Change {
+        final int type;
+        final double price;
+        int attempts;
+
+        Change(int type, double price) {
+            this.type = type;
+            this.price = price;
+        }
+    }
+
+    private static class NewProduct {
+        final String name;
+        final double price;
+        final int quantity;
+        int attempts;
+
+        NewProduct(String name, double price, int quantity) {
+            this.name = name;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    private final ConnectionProvider db;
+    private final int capacity;
+    private final int flushSize;
+    private final long intervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+    private LinkedHashMap<Integer, Change> changes = new LinkedHashMap<>();
+    private List<NewProduct> inserts = new ArrayList<>();
+    private int inFlight; // changes taken by the flush that is running
+    private volatile boolean closed;
+
+    // Only one flush writes at a time (the background thread, flush() or close())
+    private final Object flushLock = new Object();
+    private final Thread flusher;
+
+    // Counters, updated under lock or flushLock
+    private long submitted;
+    private long coalesced;
+    private long written;
+    private long notFound;
+    private long flushes;
+    private long failedFlushes;
+    private long dropped;
+    private long waits;
+
+    public ProductWriteBehindQueue(ConnectionProvider db, int capacity, int flushSize, long intervalMillis) {
+        this.db = db;
+        this.capacity = capacity;
+        this.flushSize = Math.min(flushSize, capacity);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        flusher = new Thread(this::run, "product-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void insert(String name, double price, int quantity) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            awaitRoom();
+            inserts.add(new NewProduct(name, price, quantity));
+            submitted();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updatePrice(int productId, double price) throws InterruptedException {
+        enqueue(productId, new Change(UPDATE, price));
+    }
+
+    public void delete(int productId) throws InterruptedException {
+        enqueue(productId, new Change(DELETE, 0));
+    }
+
+    private void enqueue(int productId, Change change) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            Change pending = changes.get(productId);
+            if (pending != null) {
+                // Merged into the waiting change, so it never needs room of its own
+                if (pending.type != DELETE) {
+                    changes.put(productId, change);
+                }
+                submitted++;
+                coalesced++;
+                return;
+            }
+            awaitRoom();
+            changes.put(productId, change);
+            submitted();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitRoom() throws InterruptedException {
+        while (!closed && heldCount() >= capacity) {
+            waits++;
+            flushNeeded.signal();
+            notFull.await();
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-behind queue is closed");
+        }
+    }
+
+    private void submitted() {
+        submitted++;
+        if (pendingCount() >= flushSize) {
+            flushNeeded.signal();
+        }
+    }
+
+    private int pendingCount() {
+        return changes.size() + inserts.size();
+    }
+
+    // What counts against capacity: the waiting changes and the batch being written
+    private int heldCount() {
+        return pendingCount() + inFlight;
+    }
+
+    private void run() {
+        while (!closed) {
+            lock.lock();
+            try {
+                long remaining = intervalNanos;
+                while (!closed && pendingCount() < flushSize && remaining > 0) {
+                    remaining = flushNeeded.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (closed) {
+                return;
+            }
+            try {
+                flush();
+            } catch (SQLException e) {
+                // The changes went back into the queue; the next interval retries them
+                System.out.println("⚠️ Write-behind flush failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /*
+     * Writes everything pending in one transaction. If that fails the changes are
+     * tried one at a time; the ones that still fail are put back in front of the ones
+     * queued meanwhile (or dropped after MAX_ATTEMPTS) and the exception is thrown.
+     */
+    public void flush() throws SQLException {
+        synchronized (flushLock) {
+            LinkedHashMap<Integer, Change> batchChanges;
+            List<NewProduct> batchInserts;
+            lock.lock();
+            try {
+                if (pendingCount() == 0) {
+                    return;
+                }
+                batchChanges = changes;
+                batchInserts = inserts;
+                changes = new LinkedHashMap<>();
+                inserts = new ArrayList<>();
+                inFlight = batchChanges.size() + batchInserts.size();
+            } finally {
+                lock.unlock();
+            }
+
+            SQLException error = null;
+            try {
+                write(batchChanges, batchInserts);
+                flushes++;
+                batchChanges.clear();
+                batchInserts.clear();
+            } catch (SQLException e) {
+                failedFlushes++;
+                error = e;
+                try {
+                    writeOneByOne(batchChanges, batchInserts);
+                } catch (SQLException down) {
+                    error = down;
+                }
+            } finally {
+                lock.lock();
+                try {
+                    // Whatever is left in the batch failed and is retried
+                    requeue(batchChanges, batchInserts);
+                    inFlight = 0;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (error != null && !(batchChanges.isEmpty() && batchInserts.isEmpty())) {
+                throw error;
+            }
+        }
+    }
+
+    /*
+     * Writes each change in its own transaction and removes it from the batch once it
+     * is written or dropped. Throws, leaving the rest in the batch, if the failure is
+     * not the change's fault (connection lost, timeout, deadlock).
+     */
+    private void writeOneByOne(Map<Integer, Change> batchChanges, List<NewProduct> batchInserts) throws SQLException {
+        try (Connection con = db.getConnection();
+             PreparedStatement insert = con.prepareStatement("INSERT INTO Product (ProductName, Price, Quantity) VALUES (?, ?, ?)");
+             PreparedStatement update = con.prepareStatement("UPDATE Product SET Price=? WHERE ProductID=?");
+             PreparedStatement delete = con.prepareStatement("DELETE FROM Product WHERE ProductID=?")) {
+            con.setAutoCommit(true);
+            for (Iterator<NewProduct> it = batchInserts.iterator(); it.hasNext(); ) {
+                NewProduct p = it.next();
+                try {
+                    insert.setString(1, p.name);
+                    insert.setDouble(2, p.price);
+                    insert.setInt(3, p.quantity);
+                    insert.executeUpdate();
+                    written++;
+                    it.remove();
+                } catch (SQLException e) {
+                    if (!isBadChange(con, e)) {
+                        throw e;
+                    }
+                    if (++p.attempts >= MAX_ATTEMPTS) {
+                        drop("INSERT " + p.name + " " + p.price + " x" + p.quantity, e);
+                        it.remove();
+                    }
+                }
+            }
+            for (Iterator<Map.Entry<Integer, Change>> it = batchChanges.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Integer, Change> e = it.next();
+                Change c = e.getValue();
+                try {
+                    int count;
+                    if (c.type == UPDATE) {
+                        update.setDouble(1, c.price);
+                        update.setInt(2, e.getKey());
+                        count = update.executeUpdate();
+                    } else {
+                        delete.setInt(1, e.getKey());
+                        count = delete.executeUpdate();
+                    }
+                    if (count == 0) {
+                        notFound++;
+                    }
+                    written++;
+                    it.remove();
+                } catch (SQLException ex) {
+                    if (!isBadChange(con, ex)) {
+                        throw ex;
+                    }
+                    if (++c.attempts >= MAX_ATTEMPTS) {
+                        drop((c.type == UPDATE ? "UPDATE " + e.getKey() + " price " + c.price : "DELETE " + e.getKey()), ex);
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    // True if the change itself was rejected, false if the database or connection is the problem
+    private static boolean isBadChange(Connection con, SQLException e) throws SQLException {
+        return !(e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                 || e instanceof SQLNonTransientConnectionException) && con.isValid(2);
+    }
+
+    private void drop(String change, SQLException e) {
+        dropped++;
+        System.out.println("❌ Write-behind dropped " + change + " after " + MAX_ATTEMPTS + " attempts: " + e.getMessage());
+    }
+
+    // Throws only if the batch was not committed, so the caller never writes it twice
+    private void write(Map<Integer, Change> batchChanges, List<NewProduct> batchInserts) throws SQLException {
+        boolean committed = false;
+        try (Connection con = db.getConnection()) {
+            con.setAutoCommit(false);
+            try {
+                if (!batchInserts.isEmpty()) {
+                    try (PreparedStatement ps = con.prepareStatement("INSERT INTO Product (ProductName, Price, Quantity) VALUES (?, ?, ?)")) {
+                        for (NewProduct p : batchInserts) {
+                            ps.setString(1, p.name);
+                            ps.setDouble(2, p.price);
+                            ps.setInt(3, p.quantity);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                try (PreparedStatement update = con.prepareStatement("UPDATE Product SET Price=? WHERE ProductID=?");
+                     PreparedStatement delete = con.prepareStatement("DELETE FROM Product WHERE ProductID=?")) {
+                    boolean updates = false;
+                    boolean deletes = false;
+                    for (Map.Entry<Integer, Change> e : batchChanges.entrySet()) {
+                        if (e.getValue().type == UPDATE) {
+                            update.setDouble(1, e.getValue().price);
+                            update.setInt(2, e.getKey());
+                            update.addBatch();
+                            updates = true;
+                        } else {
+                            delete.setInt(1, e.getKey());
+                            delete.addBatch();
+                            deletes = true;
+                        }
+                    }
+                    long missing = 0;
+                    if (updates) {
+                        missing += countMissing(update.executeBatch());
+                    }
+                    if (deletes) {
+                        missing += countMissing(delete.executeBatch());
+                    }
+                    con.commit();
+                    committed = true;
+                    notFound += missing;
+                }
+                written += batchInserts.size() + batchChanges.size();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (!committed) {
+                throw e;
+            }
+            // The batch is in the database; only resetting or returning the connection failed
+            System.out.println("⚠️ Write-behind batch committed, but releasing the connection failed: " + e.getMessage());
+        }
+    }
+
+    private static long countMissing(int[] counts) {
+        long missing = 0;
+        for (int c : counts) {
+            if (c == 0) {
+                missing++;
+            }
+        }
+        return missing;
+    }
+
+    private void requeue(LinkedHashMap<Integer, Change> batchChanges, List<NewProduct> batchInserts) {
+        lock.lock();
+        try {
+            // The failed changes are older: a newer change still wins unless the older one was a delete
+            for (Map.Entry<Integer, Change> e : changes.entrySet()) {
+                Change older = batchChanges.get(e.getKey());
+                if (older == null || older.type != DELETE) {
+                    batchChanges.put(e.getKey(), e.getValue());
+                }
+            }
+            changes = batchChanges;
+            batchInserts.addAll(inserts);
+            inserts = batchInserts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stops the background thread and writes what is left
+    @Override
+    public void close() throws SQLException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A bad change is dropped after MAX_ATTEMPTS, so this ends even if it keeps failing
+        SQLException last = null;
+        for (int i = 0; i < MAX_ATTEMPTS && getPendingCount() > 0; i++) {
+            try {
+                flush();
+                last = null;
+            } catch (SQLException e) {
+                last = e;
+            }
+        }
+        if (last != null) {
+            System.out.println("❌ Write-behind closed with " + getPendingCount() + " changes not written");
+            throw last;
+        }
+    }
+
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pendingCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Changes submitted per row actually written (1.0 = nothing merged)
+    public double getCoalescingRatio() {
+        lock.lock();
+        try {
+            long kept = submitted - coalesced;
+            return kept == 0 ? 1 : (double) submitted / kept;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Same lock order as flush(): flushLock first
+    public String stats() {
+        synchronized (flushLock) {
+            lock.lock();
+            try {
+                return String.format("writeBehind submitted=%d coalesced=%d ratio=%.2f written=%d notFound=%d "
+                                     + "flushes=%d failedFlushes=%d dropped=%d pending=%d/%d backPressureWaits=%d",
+                                     submitted, coalesced, getCoalescingRatio(), written, notFound,
+                                     flushes, failedFlushes, dropped, pendingCount(), capacity, waits);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
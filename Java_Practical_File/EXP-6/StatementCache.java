@@ -0,0 +1,194 @@
+package util;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * LRU cache of PreparedStatements for one physical connection, keyed by SQL text.
+ *
+ * prepare() hands out a cached statement (or prepares a new one) and closing
+ * that statement puts it back instead of closing it, so the database does not
+ * parse the same SQL again. When the cache is full the least recently used
+ * statement is really closed. closeAll() is called when the connection itself
+ * is closed.
+ *
+ * A statement goes back with the fetch size, fetch direction, max rows and
+ * query timeout it had when it was prepared, so one borrower's settings do not
+ * leak into the next. Statements still checked out when the connection returns
+ * to the pool are closed by closeCheckedOut(): the old borrower may still hold
+ * them, so they must not be handed to the next one.
+ */
+class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final JdbcMetrics metrics;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private boolean closed;
+
+    // Statements that are not checked out, most recently used last
+    private final LinkedHashMap<String, Cached> idle;
+    private final Set<Cached> checkedOut = new HashSet<>();
+
+    // A prepared statement and the settings the driver gave it
+    private static final class Cached {
+        final String sql;
+        final PreparedStatement ps;
+        final int fetchSize;
+        final int fetchDirection;
+        final int maxRows;
+        final int queryTimeout;
+        boolean changed;   // one of the settings was set while checked out
+
+        Cached(String sql, PreparedStatement ps) throws SQLException {
+            this.sql = sql;
+            this.ps = ps;
+            this.fetchSize = ps.getFetchSize();
+            this.fetchDirection = ps.getFetchDirection();
+            this.maxRows = ps.getMaxRows();
+            this.queryTimeout = ps.getQueryTimeout();
+        }
+
+        void reset() throws SQLException {
+            ps.setMaxRows(maxRows);       // first: some drivers refuse a fetch size above max rows
+            ps.setFetchSize(fetchSize);
+            ps.setFetchDirection(fetchDirection);
+            ps.setQueryTimeout(queryTimeout);
+            changed = false;
+        }
+    }
+
+    // metrics may be null
+    StatementCache(Connection physical, int maxSize, JdbcMetrics metrics,
+                   LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.metrics = metrics;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.idle = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    StatementCache.this.evictions.increment();
+                    closeQuietly(eldest.getValue().ps);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized PreparedStatement prepare(String sql) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection is closed");
+        }
+        // Checked out statements leave the map, so the same one is never handed out twice
+        Cached c = idle.remove(sql);
+        if (c != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            PreparedStatement ps = physical.prepareStatement(sql);
+            try {
+                c = new Cached(sql, ps);
+            } catch (SQLException e) {
+                closeQuietly(ps);
+                throw e;
+            }
+        }
+        checkedOut.add(c);
+        return wrap(c, metrics == null ? null : metrics.statsFor(sql));
+    }
+
+    private synchronized void giveBack(Cached c) {
+        try {
+            if (!checkedOut.remove(c) || closed || c.ps.isClosed() || idle.containsKey(c.sql)) {
+                closeQuietly(c.ps);
+                return;
+            }
+            c.ps.clearParameters();
+            c.ps.clearBatch();
+            if (c.changed) {
+                c.reset();
+            }
+            idle.put(c.sql, c);
+        } catch (SQLException e) {
+            closeQuietly(c.ps);
+        }
+    }
+
+    // Called when the connection goes back to the pool
+    synchronized void closeCheckedOut() {
+        for (Cached c : checkedOut) {
+            closeQuietly(c.ps);
+        }
+        checkedOut.clear();
+    }
+
+    synchronized void closeAll() {
+        closed = true;
+        closeCheckedOut();
+        for (Cached c : idle.values()) {
+            closeQuietly(c.ps);
+        }
+        idle.clear();
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @SuppressWarnings("fallthrough")
+    private PreparedStatement wrap(Cached c, JdbcMetrics.SqlStats stats) {
+        PreparedStatement ps = c.ps;
+        boolean[] returned = new boolean[1];
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned[0]) {
+                        returned[0] = true;
+                        giveBack(c);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned[0] || ps.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + c.sql + "]";
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setQueryTimeout":
+                    c.changed = true;   // giveBack() resets them
+                    // fall through
+                default:
+                    if (returned[0]) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    if (stats != null && (method.getName().startsWith("execute")
+                                          || method.getName().equals("getResultSet"))) {
+                        return JdbcMetrics.execute(stats, ps, method, args);
+                    }
+                    try {
+                        return method.invoke(ps, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                                          new Class<?>[] { PreparedStatement.class }, handler);
+    }
+}
@@ -2,8 +2,11 @@ package view;
 import java.util.*;
 import model.Student;
 import controller.StudentDAO;
+import controller.StudentCsvReader;
 
 public class StudentApp {
+    static final int PAGE_SIZE = 10;
+
     public static void main(String[] args) {
         Scanner sc = new Scanner(System.in);
 
@@ -16,7 +19,9 @@ public class StudentApp {
                 System.out.println("2. View Students");
                 System.out.println("3. Update Marks");
                 System.out.println("4. Delete Student");
-                System.out.println("5. Exit");
+                System.out.println("5. Bulk Import from CSV File");
+                System.out.println("6. Find Student by ID");
+                System.out.println("7. Exit");
                 System.out.print("Enter choice: ");
                 int ch = sc.nextInt();
 
@@ -36,7 +41,23 @@ public class StudentApp {
                         break;
 
                     case 2:
-                        dao.viewStudents();
+                        // Show PAGE_SIZE students at a time, continuing after the last ID shown
+                        int afterId = Integer.MIN_VALUE;
+                        while (true) {
+                            List<Student> page = dao.getStudentsPage(afterId, PAGE_SIZE);
+                            for (Student st : page) {
+                                System.out.println("ID: " + st.getStudentID() + ", Name: " + st.getName() +
+                                                   ", Dept: " + st.getDepartment() + ", Marks: " + st.getMarks());
+                            }
+                            if (page.size() < PAGE_SIZE) {
+                                break;
+                            }
+                            afterId = page.get(page.size() - 1).getStudentID();
+                            System.out.print("n = next page, q = back: ");
+                            if (!sc.next().equalsIgnoreCase("n")) {
+                                break;
+                            }
+                        }
                         break;
 
                     case 3:
@@ -54,6 +75,37 @@ public class StudentApp {
                         break;
 
                     case 5:
+                        System.out.print("Enter CSV file path (StudentID,Name,Department,Marks): ");
+                        sc.nextLine(); // the rest of the line with the menu choice
+                        String file = sc.nextLine().trim(); // the whole line: paths may contain spaces
+                        try (StudentCsvReader csv = new StudentCsvReader(file)) {
+                            StudentDAO.BulkResult result = dao.addStudents(csv);
+                            for (String error : csv.getErrors()) {
+                                System.out.println("⚠️ Skipped " + error);
+                            }
+                            for (String error : result.errors) {
+                                System.out.println("❌ " + error);
+                            }
+                        } catch (java.io.IOException e) {
+                            System.out.println("❌ Cannot read " + file + ": " + e.getMessage());
+                        }
+                        break;
+
+                    case 6:
+                        System.out.print("Enter Student ID: ");
+                        Student found = dao.getStudent(sc.nextInt());
+                        if (found == null) {
+                            System.out.println("❌ No such student");
+                        } else {
+                            System.out.println("ID: " + found.getStudentID() + ", Name: " + found.getName() +
+                                               ", Dept: " + found.getDepartment() + ", Marks: " + found.getMarks());
+                        }
+                        break;
+
+                    case 7:
+                        if (dao.getCache() != null) {
+                            System.out.println(dao.getCache().stats());
+                        }
                         System.out.println("👋 Exiting...");
                         System.exit(0);
                 }
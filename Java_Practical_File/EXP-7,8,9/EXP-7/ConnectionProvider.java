@@ -0,0 +1,374 @@
+package util;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/*
+ * Bounded JDBC connection pool shared by the raw-JDBC apps.
+ *
+ * - at most maxSize connections exist; callers wait up to maxWaitMillis for one
+ * - a connection that sat idle longer than validateAfterMillis is checked with isValid() before it is handed out
+ * - idle connections above minSize are closed after idleTimeoutMillis
+ * - a connection borrowed for longer than leakThresholdMillis is reported, with the stack trace of the
+ *   borrower if -Ddb.pool.leakTrace=true (capturing it on every borrow costs time, so it is off by default)
+ * - every connection keeps an LRU cache of up to statementCacheSize PreparedStatements (0 turns it off)
+ * - JdbcMetrics times every statement per SQL text (see getMetrics(); -Ddb.metrics=false turns it off)
+ *
+ * Closing a borrowed Connection returns it to the pool. Settings come from
+ * system properties so the apps can be pointed at another database, e.g.
+ *   -Ddb.schooldb.url=jdbc:h2:mem:schooldb;DB_CLOSE_DELAY=-1 -Ddb.schooldb.user=sa -Ddb.schooldb.password=
+ *   -Ddb.pool.maxSize=20 -Ddb.pool.statementCacheSize=100 -Ddb.metrics.dumpSeconds=60
+ */
+public class ConnectionProvider implements AutoCloseable {
+    private static final Map<String, ConnectionProvider> SHARED = new ConcurrentHashMap<>();
+    private static final boolean LEAK_TRACE = Boolean.getBoolean("db.pool.leakTrace");
+
+    // One pool per database URL and user, created on first use
+    public static ConnectionProvider forDatabase(String database, String user, String password) {
+        String url = System.getProperty("db." + database + ".url",
+                                        "jdbc:mysql://localhost:3306/" + database + "?useCursorFetch=true");
+        String dbUser = System.getProperty("db." + database + ".user", user);
+        String dbPassword = System.getProperty("db." + database + ".password", password);
+        ConnectionProvider pool = SHARED.computeIfAbsent(url + " " + dbUser, key -> new ConnectionProvider(
+            url, dbUser, dbPassword,
+            Integer.getInteger("db.pool.minSize", 2),
+            Integer.getInteger("db.pool.maxSize", 10),
+            Long.getLong("db.pool.maxWaitMillis", 30_000),
+            Long.getLong("db.pool.idleTimeoutMillis", 10 * 60_000),
+            Long.getLong("db.pool.leakThresholdMillis", 60_000)));
+        if (!Objects.equals(pool.password, dbPassword)) {
+            throw new IllegalArgumentException("Pool for " + dbUser + " at " + url + " was opened with another password");
+        }
+        return pool;
+    }
+
+    // Closes every pool made by forDatabase(), e.g. when a web app is undeployed
+    public static void closeAll() {
+        for (ConnectionProvider pool : new ArrayList<>(SHARED.values())) {
+            pool.close();
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final long validateAfterMillis = Long.getLong("db.pool.validateAfterMillis", 1000);
+    private final int statementCacheSize;
+    private final JdbcMetrics metrics;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    private static class PooledConnection {
+        final Connection physical;
+        StatementCache statements;
+        volatile long lastUsed = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Throwable borrower;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+    }
+
+    public ConnectionProvider(String url, String user, String password, int minSize, int maxSize,
+                              long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+        this(url, user, password, minSize, maxSize, maxWaitMillis, idleTimeoutMillis, leakThresholdMillis,
+             Integer.getInteger("db.pool.statementCacheSize", 50));
+    }
+
+    public ConnectionProvider(String url, String user, String password, int minSize, int maxSize,
+                              long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                              int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size " + minSize + ".." + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.metrics = Boolean.parseBoolean(System.getProperty("db.metrics", "true"))
+                       ? new JdbcMetrics(url, Long.getLong("db.metrics.dumpSeconds", 0)) : null;
+
+        if (url.startsWith("jdbc:mysql:")) {
+            try {
+                Class.forName("com.mysql.cj.jdbc.Driver");
+            } catch (ClassNotFoundException e) {
+                System.out.println("⚠️ MySQL driver not on the classpath");
+            }
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-housekeeper-" + url);
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a connection to " + url
+                                       + " (" + borrowed.size() + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pc = takeIdleOrCreate();
+            long waited = System.nanoTime() - start;
+            borrows.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+            if (metrics != null) {
+                metrics.recordPoolWait(waited);
+            }
+
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrower = LEAK_TRACE ? new Throwable("Connection borrowed here") : null;
+            pc.leakReported = false;
+            borrowed.add(pc);
+            return wrap(pc);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pc.lastUsed < validateAfterMillis || isValid(pc)) {
+                return pc;
+            }
+            validationFailures.increment();
+            destroy(pc);
+        }
+        return create();
+    }
+
+    private boolean isValid(PooledConnection pc) {
+        try {
+            return pc.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        created.increment();
+        PooledConnection pc = new PooledConnection(physical);
+        if (statementCacheSize > 0) {
+            pc.statements = new StatementCache(physical, statementCacheSize, metrics,
+                                               statementHits, statementMisses, statementEvictions);
+        }
+        return pc;
+    }
+
+    private void destroy(PooledConnection pc) {
+        total.decrementAndGet();
+        destroyed.increment();
+        if (pc.statements != null) {
+            pc.statements.closeAll();
+        }
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    // Called when the borrower closes its Connection
+    private void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        try {
+            boolean reusable = !closed && !pc.physical.isClosed();
+            if (reusable && !pc.physical.getAutoCommit()) {
+                // Never hand an open transaction to the next borrower
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                if (pc.statements != null) {
+                    pc.statements.closeCheckedOut();
+                }
+                pc.lastUsed = System.currentTimeMillis();
+                pc.borrower = null;
+                idle.offerFirst(pc);
+            } else {
+                destroy(pc);
+            }
+        } catch (SQLException e) {
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // The borrower gets a proxy whose close() gives the connection back instead of closing it
+    private Connection wrap(PooledConnection pc) {
+        AtomicBoolean returned = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + pc.physical + "]";
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    if (pc.statements != null && method.getName().equals("prepareStatement")
+                            && args.length == 1) {
+                        return pc.statements.prepare((String) args[0]);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(pc.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (metrics != null && result instanceof Statement) {
+                        return metrics.wrap((Statement) result, method.getReturnType(),
+                                            method.getName().equals("createStatement") ? null : (String) args[0]);
+                    }
+                    return result;
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                                                   new Class<?>[] { Connection.class }, handler);
+    }
+
+    // Evicts idle connections, tops up to minSize and reports leaks
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && total.get() > minSize) {
+            PooledConnection pc = it.next();
+            if (now - pc.lastUsed > idleTimeoutMillis && idle.remove(pc)) {
+                destroy(pc);
+            }
+        }
+
+        while (!closed && total.get() < minSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(create());
+            } catch (SQLException e) {
+                System.out.println("⚠️ Could not open connection to " + url + ": " + e.getMessage());
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+
+        for (PooledConnection pc : borrowed) {
+            if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                pc.leakReported = true;
+                leaks.increment();
+                Throwable borrower = pc.borrower;
+                System.out.println("⚠️ Possible connection leak: held for " + (now - pc.borrowedAt) + " ms");
+                if (borrower != null) {
+                    borrower.printStackTrace(System.out);
+                } else {
+                    System.out.println("   (run with -Ddb.pool.leakTrace=true to see where it was borrowed)");
+                }
+            }
+        }
+    }
+
+    public int getActiveCount() { return borrowed.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getTotalCount() { return total.get(); }
+    public long getBorrowCount() { return borrows.sum(); }
+    public long getTimeoutCount() { return timeouts.sum(); }
+    public long getLeakCount() { return leaks.sum(); }
+    public double getAverageWaitMillis() {
+        long n = borrows.sum();
+        return n == 0 ? 0 : waitNanos.sum() / 1e6 / n;
+    }
+    public double getMaxWaitMillis() { return maxWaitNanos.get() / 1e6; }
+    public long getStatementCacheHits() { return statementHits.sum(); }
+    public long getStatementCacheMisses() { return statementMisses.sum(); }
+    public long getStatementCacheEvictions() { return statementEvictions.sum(); }
+    public JdbcMetrics getMetrics() { return metrics; }
+
+    public String stats() {
+        return String.format("pool[%s] active=%d idle=%d total=%d/%d borrows=%d avgWait=%.3fms maxWait=%.3fms "
+                             + "timeouts=%d created=%d destroyed=%d validationFailures=%d leaks=%d "
+                             + "stmtCache[hits=%d misses=%d evictions=%d]",
+                             url, getActiveCount(), getIdleCount(), getTotalCount(), maxSize, getBorrowCount(),
+                             getAverageWaitMillis(), getMaxWaitMillis(), getTimeoutCount(),
+                             created.sum(), destroyed.sum(), validationFailures.sum(), getLeakCount(),
+                             getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        try {
+            housekeeper.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+        if (metrics != null) {
+            metrics.close();
+        }
+        SHARED.values().remove(this);
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import util.ConnectionProvider;
+
+/*
+ * Exports the Employee table in parallel.
+ *
+ * The EmpID range (MIN..MAX) is cut into partitions, and a fixed number of
+ * threads each borrow a pool connection and read one partition at a time with
+ * "WHERE EmpID >= ? AND EmpID < ? ORDER BY EmpID". Rows are encoded into a large
+ * buffer that goes to a FileChannel in one write when it is full.
+ *
+ * - CSV: "EmpID,Name,Salary" header, names quoted when needed
+ * - BINARY: the record file layout of EmployeeRecordStore (EXP-2.2): 16 byte
+ *   header (magic, record size, record count) and 44 byte records, so the
+ *   export can be opened there directly
+ *
+ * With singleFile every partition is written to a temporary part file and the
+ * parts are appended to the output in EmpID order with transferTo as soon as
+ * each one is done; otherwise the part files (name-000.csv, ...) are the output.
+ */
+public class EmployeeExporter {
+    enum Format { CSV, BINARY }
+
+    static final int MAGIC = 0x454D5031; // "EMP1", as in EmployeeRecordStore
+    static final int HEADER_SIZE = 16;
+    static final int NAME_BYTES = 31;
+    static final int RECORD_SIZE = 4 + 1 + NAME_BYTES + 8;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final ConnectionProvider db;
+    private final Format format;
+    private final int threads;
+    private final int partitions;
+    private final boolean singleFile;
+    private final int fetchSize = Integer.getInteger("db.fetchSize", 1000);
+
+    public EmployeeExporter(ConnectionProvider db, Format format, int threads, int partitions, boolean singleFile) {
+        this.db = db;
+        this.format = format;
+        this.threads = threads;
+        this.partitions = Math.max(partitions, 1);
+        this.singleFile = singleFile;
+    }
+
+    // Writes the export and returns the number of rows
+    public long export(String output) throws Exception {
+        long[] bounds = idBounds();
+        Path out = Paths.get(output);
+        if (bounds == null) {
+            // Empty table: just the header
+            try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.allocate(64);
+                writeHeader(buf, 0);
+                buf.flip();
+                writeFully(ch, buf);
+            }
+            return 0;
+        }
+
+        // Half-open ranges [from, to) that together cover MIN..MAX
+        long from = bounds[0];
+        long to = bounds[1] + 1;
+        int parts = (int) Math.min(partitions, to - from);
+        long step = (to - from + parts - 1) / parts;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            for (int i = 0; i < parts; i++) {
+                long lo = from + i * step;
+                long hi = Math.min(lo + step, to);
+                Path file = singleFile ? Paths.get(output + ".part" + i) : partName(out, i);
+                files.add(file);
+                results.add(pool.submit(() -> exportRange(lo, hi, file, !singleFile)));
+            }
+
+            long rows = 0;
+            if (!singleFile) {
+                for (Future<Long> r : results) {
+                    rows += r.get();
+                }
+                return rows;
+            }
+
+            try (FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(64);
+                writeHeader(header, 0);
+                header.flip();
+                writeFully(target, header);
+                for (int i = 0; i < parts; i++) {
+                    rows += results.get(i).get();
+                    try (FileChannel part = FileChannel.open(files.get(i), StandardOpenOption.READ)) {
+                        long size = part.size();
+                        long done = 0;
+                        while (done < size) {
+                            done += part.transferTo(done, size - done, target);
+                        }
+                    }
+                    Files.delete(files.get(i));
+                }
+                if (format == Format.BINARY) {
+                    // The record count is only known now
+                    ByteBuffer count = ByteBuffer.allocate(8).putLong(0, rows);
+                    target.write(count, 8);
+                }
+            } finally {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            return rows;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private long[] idBounds() throws SQLException {
+        try (Connection con = db.getConnection();
+             Statement st = con.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MIN(EmpID), MAX(EmpID) FROM Employee")) {
+            rs.next();
+            long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return null;
+            }
+            return new long[] { min, rs.getLong(2) };
+        }
+    }
+
+    private static Path partName(Path out, int i) {
+        String name = out.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String part = dot < 0 ? String.format("%s-%03d", name, i)
+                              : String.format("%s-%03d%s", name.substring(0, dot), i, name.substring(dot));
+        return out.resolveSibling(part);
+    }
+
+    private long exportRange(long lo, long hi, Path file, boolean withHeader) throws Exception {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        StringBuilder line = new StringBuilder(128);
+        byte[] nameBytes = new byte[NAME_BYTES];
+        long rows = 0;
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+             Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(
+                 "SELECT EmpID, Name, Salary FROM Employee WHERE EmpID >= ? AND EmpID < ? ORDER BY EmpID")) {
+            if (withHeader) {
+                writeHeader(buf, 0);
+            }
+            ps.setLong(1, lo);
+            ps.setLong(2, hi);
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    String name = rs.getString(2);
+                    double salary = rs.getDouble(3);
+                    if (format == Format.BINARY) {
+                        if (buf.remaining() < RECORD_SIZE) {
+                            drain(ch, buf);
+                        }
+                        putRecord(buf, id, name, salary, nameBytes);
+                    } else {
+                        line.setLength(0);
+                        line.append(id).append(',');
+                        appendCsv(line, name);
+                        line.append(',').append(salary).append('\n');
+                        CharBuffer chars = CharBuffer.wrap(line);
+                        while (encoder.encode(chars, buf, true).isOverflow()) {
+                            drain(ch, buf);
+                        }
+                        encoder.reset();
+                    }
+                    rows++;
+                }
+            }
+            drain(ch, buf);
+            if (withHeader && format == Format.BINARY) {
+                // The record count in the header is only known now
+                ch.write(ByteBuffer.allocate(8).putLong(0, rows), 8);
+            }
+        }
+        return rows;
+    }
+
+    private void writeHeader(ByteBuffer buf, long count) {
+        if (format == Format.BINARY) {
+            buf.putInt(MAGIC).putInt(RECORD_SIZE).putLong(count);
+        } else {
+            buf.put("EmpID,Name,Salary\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    // Padding as in EmployeeRecordStore.append. That rejects names over NAME_BYTES; an export
+    // cuts them at a character boundary instead, so one long name does not fail the whole file
+    private static void putRecord(ByteBuffer buf, int id, String name, double salary, byte[] scratch) {
+        byte[] bytes = name == null ? scratch : name.getBytes(StandardCharsets.UTF_8);
+        int length = name == null ? 0 : Math.min(bytes.length, NAME_BYTES);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buf.putInt(id);
+        buf.put((byte) length);
+        buf.put(bytes, 0, length);
+        for (int i = length; i < NAME_BYTES; i++) {
+            buf.put((byte) 0);
+        }
+        buf.putDouble(salary);
+    }
+
+    private static void appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        writeFully(ch, buf);
+        buf.clear();
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+}
@@ -1,17 +1,29 @@
 import java.sql.*;
+import java.util.Random;
+import util.ConnectionProvider;
 
+/*
+ * Without arguments the Employee table is printed. With arguments it is exported:
+ *   java FetchEmployeeData -o employees.csv [-f csv|bin] [-t threads] [-p partitions] [-split] [-seed rows]
+ *
+ * -t      threads (= pool connections) reading in parallel, default 4
+ * -p      EmpID ranges the table is cut into, default 4 per thread
+ * -split  one file per range (employees-000.csv, ...) instead of one ordered file
+ * -seed   first fills Employee with that many generated rows (for a test database)
+ *
+ * Testing against an in-memory H2 database instead of MySQL:
+ *   java -cp .:h2.jar -Ddb.companydb.url=jdbc:h2:mem:companydb -Ddb.companydb.user=sa -Ddb.companydb.password=
+ *        FetchEmployeeData -seed 1000000 -o employees.bin -f bin
+ */
 public class FetchEmployeeData {
     public static void main(String[] args) {
-        String url = "jdbc:mysql://localhost:3306/companydb"; // Your DB name
-        String user = "root"; // Your MySQL username
-        String pass = "root"; // Your MySQL password
-
+        if (args.length > 0) {
+            export(args);
+            return;
+        }
         try {
-            // 1️⃣ Load MySQL JDBC Driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-
-            // 2️⃣ Establish Connection
-            Connection con = DriverManager.getConnection(url, user, pass);
+            // 1️⃣ + 2️⃣ Borrow a connection from the shared pool (loads the MySQL driver)
+            Connection con = ConnectionProvider.forDatabase("companydb", "root", "root").getConnection();
             System.out.println("✅ Connected to MySQL successfully!");
 
             // 3️⃣ Create Statement
@@ -29,11 +41,92 @@ public class FetchEmployeeData {
                 System.out.println("-----------------------------");
             }
 
-            // 6️⃣ Close Connection
+            // 6️⃣ Close Connection (returns it to the pool)
             con.close();
 
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    static void export(String[] args) {
+        String output = null;
+        EmployeeExporter.Format format = EmployeeExporter.Format.CSV;
+        int threads = 4;
+        int partitions = -1;
+        boolean split = false;
+        int seed = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o":
+                    output = args[++i];
+                    break;
+                case "-f":
+                    format = args[++i].equalsIgnoreCase("bin") ? EmployeeExporter.Format.BINARY : EmployeeExporter.Format.CSV;
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-p":
+                    partitions = Integer.parseInt(args[++i]);
+                    break;
+                case "-split":
+                    split = true;
+                    break;
+                case "-seed":
+                    seed = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.out.println("⚠️ Unknown option " + args[i]);
+                    return;
+            }
+        }
+        if (output == null) {
+            System.out.println("⚠️ Usage: FetchEmployeeData -o file [-f csv|bin] [-t threads] [-p partitions] [-split] [-seed rows]");
+            return;
+        }
+
+        // Every thread holds a connection, plus one for the MIN/MAX query
+        if (System.getProperty("db.pool.maxSize") == null) {
+            System.setProperty("db.pool.maxSize", String.valueOf(threads + 1));
+        }
+        try (ConnectionProvider db = ConnectionProvider.forDatabase("companydb", "root", "root")) {
+            if (seed > 0) {
+                seed(db, seed);
+            }
+            EmployeeExporter exporter = new EmployeeExporter(db, format, threads,
+                                                             partitions > 0 ? partitions : threads * 4, !split);
+            long start = System.nanoTime();
+            long rows = exporter.export(output);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("✅ Exported %d rows to %s%s in %.2f s (%.0f rows/s)%n", rows, output,
+                              split ? " (one file per range)" : "", seconds, rows / seconds);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void seed(ConnectionProvider db, int rows) throws SQLException {
+        try (Connection con = db.getConnection()) {
+            try (Statement st = con.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS Employee (EmpID INT PRIMARY KEY, Name VARCHAR(50), Salary DOUBLE)");
+            }
+            con.setAutoCommit(false);
+            try (PreparedStatement ps = con.prepareStatement("INSERT INTO Employee VALUES (?, ?, ?)")) {
+                Random random = new Random(42);
+                for (int i = 1; i <= rows; i++) {
+                    ps.setInt(1, i);
+                    ps.setString(2, "Employee" + i);
+                    ps.setDouble(3, 20_000 + random.nextInt(80_000));
+                    ps.addBatch();
+                    if (i % 1000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            con.commit();
+        }
+        System.out.println("✅ Seeded " + rows + " employees");
+    }
 }
@@ -1,20 +1,40 @@
 import java.sql.*;
 import java.util.Scanner;
+import util.ConnectionProvider;
 
+/*
+ * Write-behind mode (changes are queued and committed in batches, see ProductWriteBehindQueue):
+ *   -Dproduct.writeBehind=true -Dproduct.writeBehind.intervalMillis=1000
+ *   -Dproduct.writeBehind.flushSize=500 -Dproduct.writeBehind.capacity=10000
+ */
 public class ProductCRUD {
     public static void main(String[] args) {
-        String url = "jdbc:mysql://localhost:3306/companydb";
-        String user = "root";
-        String pass = "root";
-
         Scanner sc = new Scanner(System.in);
 
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection con = DriverManager.getConnection(url, user, pass);
-            con.setAutoCommit(false); // For transaction handling
+            ConnectionProvider db = ConnectionProvider.forDatabase("companydb", "root", "root");
+            // Each menu action borrows a connection and gives it back, so none is held while the menu waits
+            db.getConnection().close(); // fails here if MySQL cannot be reached
             System.out.println("✅ Connected to MySQL!");
 
+            ProductWriteBehindQueue queue = null;
+            if (Boolean.getBoolean("product.writeBehind")) {
+                queue = new ProductWriteBehindQueue(db,
+                                                    Integer.getInteger("product.writeBehind.capacity", 10_000),
+                                                    Integer.getInteger("product.writeBehind.flushSize", 500),
+                                                    Long.getLong("product.writeBehind.intervalMillis", 1_000));
+                // Ctrl+C still writes the queued changes
+                ProductWriteBehindQueue q = queue;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        q.close();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                }));
+                System.out.println("⏳ Write-behind mode: changes are committed in batches");
+            }
+
             while (true) {
                 System.out.println("\n--- PRODUCT MENU ---");
                 System.out.println("1. Add Product");
@@ -34,24 +54,37 @@ public class ProductCRUD {
                         System.out.print("Enter Quantity: ");
                         int qty = sc.nextInt();
 
-                        PreparedStatement ps1 = con.prepareStatement("INSERT INTO Product (ProductName, Price, Quantity) VALUES (?, ?, ?)");
-                        ps1.setString(1, name);
-                        ps1.setDouble(2, price);
-                        ps1.setInt(3, qty);
-                        ps1.executeUpdate();
-                        con.commit();
+                        if (queue != null) {
+                            queue.insert(name, price, qty);
+                            System.out.println("⏳ Product queued");
+                            break;
+                        }
+                        // Closing gives the statement back to the connection's statement cache
+                        try (Connection con = db.getConnection();
+                             PreparedStatement ps1 = con.prepareStatement("INSERT INTO Product (ProductName, Price, Quantity) VALUES (?, ?, ?)")) {
+                            ps1.setString(1, name);
+                            ps1.setDouble(2, price);
+                            ps1.setInt(3, qty);
+                            ps1.executeUpdate();
+                        }
                         System.out.println("✅ Product added successfully!");
                         break;
 
                     case 2:
-                        Statement stmt = con.createStatement();
-                        ResultSet rs = stmt.executeQuery("SELECT * FROM Product");
-                        System.out.println("\n--- Product List ---");
-                        while (rs.next()) {
-                            System.out.println("ID: " + rs.getInt("ProductID") +
-                                               ", Name: " + rs.getString("ProductName") +
-                                               ", Price: " + rs.getDouble("Price") +
-                                               ", Qty: " + rs.getInt("Quantity"));
+                        if (queue != null) {
+                            queue.flush(); // Show the queued changes too
+                        }
+                        // A fresh connection also sees what the queue committed on its own one
+                        try (Connection con = db.getConnection();
+                             Statement stmt = con.createStatement();
+                             ResultSet rs = stmt.executeQuery("SELECT * FROM Product")) {
+                            System.out.println("\n--- Product List ---");
+                            while (rs.next()) {
+                                System.out.println("ID: " + rs.getInt("ProductID") +
+                                                   ", Name: " + rs.getString("ProductName") +
+                                                   ", Price: " + rs.getDouble("Price") +
+                                                   ", Qty: " + rs.getInt("Quantity"));
+                            }
                         }
                         break;
 
@@ -61,12 +94,19 @@ public class ProductCRUD {
                         System.out.print("Enter New Price: ");
                         double newPrice = sc.nextDouble();
 
-                        PreparedStatement ps2 = con.prepareStatement("UPDATE Product SET Price=? WHERE ProductID=?");
-                        ps2.setDouble(1, newPrice);
-                        ps2.setInt(2, idu);
-                        int updated = ps2.executeUpdate();
+                        if (queue != null) {
+                            queue.updatePrice(idu, newPrice);
+                            System.out.println("⏳ Update queued");
+                            break;
+                        }
+                        int updated;
+                        try (Connection con = db.getConnection();
+                             PreparedStatement ps2 = con.prepareStatement("UPDATE Product SET Price=? WHERE ProductID=?")) {
+                            ps2.setDouble(1, newPrice);
+                            ps2.setInt(2, idu);
+                            updated = ps2.executeUpdate();
+                        }
                         if (updated > 0) {
-                            con.commit();
                             System.out.println("✅ Product updated!");
                         } else {
                             System.out.println("❌ Product not found.");
@@ -76,11 +116,18 @@ public class ProductCRUD {
                     case 4:
                         System.out.print("Enter Product ID to delete: ");
                         int idd = sc.nextInt();
-                        PreparedStatement ps3 = con.prepareStatement("DELETE FROM Product WHERE ProductID=?");
-                        ps3.setInt(1, idd);
-                        int deleted = ps3.executeUpdate();
+                        if (queue != null) {
+                            queue.delete(idd);
+                            System.out.println("⏳ Delete queued");
+                            break;
+                        }
+                        int deleted;
+                        try (Connection con = db.getConnection();
+                             PreparedStatement ps3 = con.prepareStatement("DELETE FROM Product WHERE ProductID=?")) {
+                            ps3.setInt(1, idd);
+                            deleted = ps3.executeUpdate();
+                        }
                         if (deleted > 0) {
-                            con.commit();
                             System.out.println("✅ Product deleted!");
                         } else {
                             System.out.println("❌ Product not found.");
@@ -88,7 +135,11 @@ public class ProductCRUD {
                         break;
 
                     case 5:
-                        con.close();
+                        if (queue != null) {
+                            queue.close();
+                            System.out.println(queue.stats());
+                        }
+                        db.close();
                         System.out.println("👋 Exiting program...");
                         System.exit(0);
                         break;
@@ -0,0 +1,251 @@
+package controller;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import model.Student;
+
+/*
+ * Bounded cache of Students by StudentID with W-TinyLFU eviction.
+ *
+ * - new entries go into a small LRU window (1% of maxSize)
+ * - an entry pushed out of the window only enters the main area if it has been
+ *   asked for more often than the main area's LRU victim; a count-min sketch
+ *   keeps those (approximate, periodically halved) access counts
+ * - the main area is split into probation and protected (80%) LRU segments;
+ *   a hit in probation moves the entry to protected
+ * - entries older than ttlMillis are treated as missing (0 = no TTL)
+ *
+ * Writers call invalidate() after the database change. A reader takes stamp()
+ * before it queries the database and caches the row with putIfUnchanged(), which
+ * is dropped if the key was invalidated in between, so a value read before a
+ * write can never be cached after it.
+ */
+public class StudentCache {
+    private static final int STAMP_STRIPES = 1024;
+
+    private static class Entry {
+        final Student student;
+        final long loadedAt;
+
+        Entry(Student student, long loadedAt) {
+            this.student = student;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final int windowMax;
+    private final int protectedMax;
+    private final int mainMax;
+    private final long ttlNanos;
+
+    // Access-ordered: the first entry is the least recently used
+    private final LinkedHashMap<Integer, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Integer, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Integer, Entry> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+    private final long[] stamps = new long[STAMP_STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder rejectedLoads = new LongAdder();
+
+    public StudentCache(int maxSize, long ttlMillis) {
+        if (maxSize < 2) {
+            throw new IllegalArgumentException("maxSize must be at least 2");
+        }
+        windowMax = Math.max(1, maxSize / 100);
+        mainMax = maxSize - windowMax;
+        protectedMax = mainMax * 8 / 10;
+        ttlNanos = ttlMillis * 1_000_000L;
+        sketch = new FrequencySketch(maxSize);
+    }
+
+    // Cached student or null; counts as one access for the frequency sketch
+    public synchronized Student get(int id) {
+        sketch.increment(id);
+        Integer key = id;
+        Entry e = window.get(key);
+        if (e == null) {
+            e = protectedSegment.get(key);
+        }
+        if (e == null) {
+            e = probation.remove(key);
+            if (e != null) {
+                promote(key, e);
+            }
+        }
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - e.loadedAt > ttlNanos) {
+            remove(key);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.student;
+    }
+
+    // Take this before reading the row from the database
+    public synchronized long stamp(int id) {
+        return stamps[stripe(id)];
+    }
+
+    // Caches a row read from the database unless the key was invalidated since stamp(id)
+    public synchronized boolean putIfUnchanged(int id, Student s, long stamp) {
+        if (stamps[stripe(id)] != stamp) {
+            rejectedLoads.increment();
+            return false;
+        }
+        Integer key = id;
+        remove(key);
+        window.put(key, new Entry(s, System.nanoTime()));
+        if (window.size() > windowMax) {
+            Iterator<Map.Entry<Integer, Entry>> it = window.entrySet().iterator();
+            Map.Entry<Integer, Entry> candidate = it.next();
+            it.remove();
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        return true;
+    }
+
+    // Drops the entry and makes every load that started before this call go uncached
+    public synchronized void invalidate(int id) {
+        stamps[stripe(id)]++;
+        remove(id);
+        invalidations.increment();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < stamps.length; i++) {
+            stamps[i]++;
+        }
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public String stats() {
+        return String.format("studentCache size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d "
+                             + "expirations=%d invalidations=%d rejectedLoads=%d",
+                             size(), windowMax + mainMax, getHits(), getMisses(), getHitRate() * 100,
+                             getEvictions(), expirations.sum(), invalidations.sum(), rejectedLoads.sum());
+    }
+
+    // Window overflow: the candidate competes with the probation victim for a place in the main area
+    private void admit(Integer key, Entry candidate) {
+        if (probation.size() + protectedSegment.size() < mainMax) {
+            probation.put(key, candidate);
+            return;
+        }
+        Iterator<Map.Entry<Integer, Entry>> it = (probation.isEmpty() ? protectedSegment : probation).entrySet().iterator();
+        Map.Entry<Integer, Entry> victim = it.next();
+        if (sketch.frequency(key) > sketch.frequency(victim.getKey())) {
+            it.remove();
+            probation.put(key, candidate);
+        }
+        evictions.increment();
+    }
+
+    private void promote(Integer key, Entry e) {
+        protectedSegment.put(key, e);
+        if (protectedSegment.size() > protectedMax) {
+            Iterator<Map.Entry<Integer, Entry>> it = protectedSegment.entrySet().iterator();
+            Map.Entry<Integer, Entry> demoted = it.next();
+            it.remove();
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private void remove(Integer key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    private static int stripe(int id) {
+        return spread(id) & (STAMP_STRIPES - 1);
+    }
+
+    private static int spread(int x) {
+        x = (x ^ (x >>> 16)) * 0x45d9f3b;
+        x = (x ^ (x >>> 16)) * 0x45d9f3b;
+        return x ^ (x >>> 16);
+    }
+
+    /*
+     * Count-min sketch: four rows of 4-bit counters packed into longs. Every
+     * counter is halved once sampleSize accesses were recorded, so old
+     * popularity fades out.
+     */
+    private static class FrequencySketch {
+        private final long[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxSize) {
+            int length = Integer.highestOneBit(Math.max(maxSize, 16) - 1) << 1;
+            table = new long[length];
+            mask = length - 1;
+            sampleSize = 10 * maxSize;
+        }
+
+        int frequency(int id) {
+            int h = spread(id);
+            int min = 15;
+            for (int row = 0; row < 4; row++) {
+                min = Math.min(min, (int) ((table[index(h, row)] >>> shift(h, row)) & 0xF));
+            }
+            return min;
+        }
+
+        void increment(int id) {
+            int h = spread(id);
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int i = index(h, row);
+                int shift = shift(h, row);
+                if (((table[i] >>> shift) & 0xF) < 15) {
+                    table[i] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+                }
+                additions /= 2;
+            }
+        }
+
+        // A different slot per row, then one of the 16 counters in it
+        private int index(int h, int row) {
+            int x = (h + row * 0x9E3779B9) * 0x2C1B3C6D;
+            return (x ^ (x >>> 15)) & mask;
+        }
+
+        private int shift(int h, int row) {
+            return (((h >>> (row * 8)) & 3) + row * 4) << 2;
+        }
+    }
+}
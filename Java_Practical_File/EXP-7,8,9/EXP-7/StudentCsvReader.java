@@ -0,0 +1,88 @@
+package controller;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import model.Student;
+
+/*
+ * Reads Student rows from a CSV file (StudentID,Name,Department,Marks) one line
+ * at a time, so addStudents() can import files larger than memory.
+ * The first line is skipped as the header only if its first field is StudentID
+ * (any case, quotes and a byte order mark ignored). Lines that cannot be parsed,
+ * including a malformed first line, are skipped and recorded in getErrors() with
+ * their line number.
+ */
+public class StudentCsvReader implements Iterable<Student>, Closeable {
+    private final BufferedReader reader;
+    private final List<String> errors = new ArrayList<>();
+    private int skipped;
+    private int lineNumber;
+
+    public StudentCsvReader(String fileName) throws IOException {
+        reader = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    public List<String> getErrors() { return errors; }
+    public int getSkipped() { return skipped; }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Iterator<Student>() {
+            Student next = advance();
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Student next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Student s = next;
+                next = advance();
+                return s;
+            }
+        };
+    }
+
+    private Student advance() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1) {
+                    if (isHeader(line)) continue;
+                    if (line.startsWith("\uFEFF")) line = line.substring(1);
+                }
+                if (line.trim().isEmpty()) continue;
+                String[] parts = line.split(",");
+                try {
+                    if (parts.length != 4) {
+                        throw new IllegalArgumentException("expected 4 fields, found " + parts.length);
+                    }
+                    return new Student(Integer.parseInt(parts[0].trim()), parts[1].trim(),
+                                       parts[2].trim(), Double.parseDouble(parts[3].trim()));
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                    if (errors.size() < StudentDAO.MAX_REPORTED_ERRORS) {
+                        errors.add("Line " + lineNumber + ": " + e.getMessage());
+                    }
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static boolean isHeader(String line) {
+        int comma = line.indexOf(',');
+        String field = (comma < 0 ? line : line.substring(0, comma)).replace("\uFEFF", "").replace("\"", "").trim();
+        return field.equalsIgnoreCase("StudentID");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
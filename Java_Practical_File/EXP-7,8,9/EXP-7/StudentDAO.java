@@ -1,50 +1,268 @@
 package controller;
 import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
 import model.Student;
+import util.ConnectionProvider;
 
 public class StudentDAO {
-    Connection con;
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final int DEFAULT_COMMIT_INTERVAL = 5000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+    static final int DEFAULT_FETCH_SIZE = Integer.getInteger("db.fetchSize", 500);
 
+    ConnectionProvider db;
+    StudentCache cache;
+
+    // Outcome of addStudents(): counts plus one message per failed row (up to MAX_REPORTED_ERRORS)
+    public static class BulkResult {
+        public int inserted;
+        public int failed;
+        public final List<String> errors = new ArrayList<>();
+
+        void fail(int row, Student s, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Row " + row + " (ID " + s.getStudentID() + "): " + message);
+            }
+        }
+    }
+
+    // Cache size and TTL: -Dstudent.cache.size=10000 -Dstudent.cache.ttlMillis=0 (size 0 turns the cache off)
     public StudentDAO() throws Exception {
-        Class.forName("com.mysql.cj.jdbc.Driver");
-        con = DriverManager.getConnection("jdbc:mysql://localhost:3306/schooldb", "root", "root");
+        this(ConnectionProvider.forDatabase("schooldb", "root", "root"), defaultCache());
+    }
+
+    // Uses another pool (e.g. one on an in-memory test database)
+    public StudentDAO(ConnectionProvider db) {
+        this(db, defaultCache());
+    }
+
+    // cache may be null to always read from the database
+    public StudentDAO(ConnectionProvider db, StudentCache cache) {
+        this.db = db;
+        this.cache = cache;
+    }
+
+    private static StudentCache defaultCache() {
+        int size = Integer.getInteger("student.cache.size", 10_000);
+        return size == 0 ? null : new StudentCache(size, Long.getLong("student.cache.ttlMillis", 0));
+    }
+
+    public StudentCache getCache() {
+        return cache;
     }
 
     // Create
     public void addStudent(Student s) throws Exception {
-        PreparedStatement ps = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?)");
-        ps.setInt(1, s.getStudentID());
-        ps.setString(2, s.getName());
-        ps.setString(3, s.getDepartment());
-        ps.setDouble(4, s.getMarks());
-        ps.executeUpdate();
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, s.getStudentID());
+            ps.setString(2, s.getName());
+            ps.setString(3, s.getDepartment());
+            ps.setDouble(4, s.getMarks());
+            ps.executeUpdate();
+        }
         System.out.println("✅ Student added!");
     }
 
+    // Bulk create
+    public BulkResult addStudents(Iterable<Student> students) throws Exception {
+        return addStudents(students, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /*
+     * Inserts the students with JDBC batches of batchSize rows and commits every
+     * commitInterval rows. A row the database rejects is reported in the result
+     * and the rest of its batch is still inserted. The students are consumed as
+     * they are iterated, so a streaming Iterable never has to fit in memory.
+     */
+    public BulkResult addStudents(Iterable<Student> students, int batchSize, int commitInterval) throws Exception {
+        BulkResult result = new BulkResult();
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?)")) {
+            con.setAutoCommit(false);
+            List<Student> batch = new ArrayList<>(batchSize);
+            int row = 0;
+            int firstRow = 1;
+            int uncommitted = 0;
+            for (Student s : students) {
+                row++;
+                batch.add(s);
+                if (batch.size() == batchSize) {
+                    executeBatch(ps, batch, firstRow, result);
+                    uncommitted += batch.size();
+                    batch.clear();
+                    firstRow = row + 1;
+                    if (uncommitted >= commitInterval) {
+                        con.commit();
+                        uncommitted = 0;
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                executeBatch(ps, batch, firstRow, result);
+            }
+            con.commit();
+            con.setAutoCommit(true);
+        }
+        System.out.println("✅ " + result.inserted + " students added, " + result.failed + " failed");
+        return result;
+    }
+
+    private void executeBatch(PreparedStatement ps, List<Student> batch, int firstRow, BulkResult result) throws SQLException {
+        for (Student s : batch) {
+            ps.setInt(1, s.getStudentID());
+            ps.setString(2, s.getName());
+            ps.setString(3, s.getDepartment());
+            ps.setDouble(4, s.getMarks());
+            ps.addBatch();
+        }
+        try {
+            ps.executeBatch();
+            result.inserted += batch.size();
+        } catch (BatchUpdateException e) {
+            ps.clearBatch();
+            int[] counts = e.getUpdateCounts();
+            int done = counts == null ? 0 : counts.length;
+            for (int i = 0; i < done; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    result.fail(firstRow + i, batch.get(i), e.getMessage());
+                } else {
+                    result.inserted++;
+                }
+            }
+            if (done < batch.size()) {
+                // The driver stopped at the first bad row: report it and carry on after it
+                result.fail(firstRow + done, batch.get(done), e.getMessage());
+                if (done + 1 < batch.size()) {
+                    executeBatch(ps, batch.subList(done + 1, batch.size()), firstRow + done + 1, result);
+                }
+            }
+        }
+    }
+
     // Read
     public void viewStudents() throws Exception {
-        Statement stmt = con.createStatement();
-        ResultSet rs = stmt.executeQuery("SELECT * FROM Student");
-        while (rs.next()) {
-            System.out.println("ID: " + rs.getInt(1) + ", Name: " + rs.getString(2) +
-                               ", Dept: " + rs.getString(3) + ", Marks: " + rs.getDouble(4));
+        streamStudents(DEFAULT_FETCH_SIZE, s ->
+            System.out.println("ID: " + s.getStudentID() + ", Name: " + s.getName() +
+                               ", Dept: " + s.getDepartment() + ", Marks: " + s.getMarks()));
+    }
+
+    /*
+     * Hands every student to the callback while the rows are still being read,
+     * fetchSize rows per round-trip, so the table is never held in memory.
+     * MySQL only honours the fetch size with useCursorFetch=true in the URL
+     * (the pool's default URL sets it); Integer.MIN_VALUE streams row by row instead.
+     * The connection is held until the last row has been handled.
+     */
+    public void streamStudents(int fetchSize, Consumer<Student> callback) throws Exception {
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("SELECT * FROM Student ORDER BY StudentID")) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(toStudent(rs));
+                }
+            }
+        }
+    }
+
+    // Keyset pagination: the next pageSize students with an ID above afterId
+    public List<Student> getStudentsPage(int afterId, int pageSize) throws Exception {
+        List<Student> page = new ArrayList<>(pageSize);
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(
+                 "SELECT * FROM Student WHERE StudentID > ? ORDER BY StudentID LIMIT ?")) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, pageSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    page.add(toStudent(rs));
+                }
+            }
+        }
+        return page;
+    }
+
+    // Walks the whole table page by page; the connection is only held while a page is read
+    public void forEachStudent(int pageSize, Consumer<Student> callback) throws Exception {
+        int afterId = Integer.MIN_VALUE;
+        List<Student> page;
+        do {
+            page = getStudentsPage(afterId, pageSize);
+            for (Student s : page) {
+                callback.accept(s);
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getStudentID();
+            }
+        } while (page.size() == pageSize);
+    }
+
+    private static Student toStudent(ResultSet rs) throws SQLException {
+        return new Student(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getDouble(4));
+    }
+
+    // Read one student (null if there is none), through the cache
+    public Student getStudent(int id) throws Exception {
+        if (cache == null) {
+            return loadStudent(id);
+        }
+        Student s = cache.get(id);
+        if (s != null) {
+            return s;
+        }
+        long stamp = cache.stamp(id);
+        s = loadStudent(id);
+        if (s != null) {
+            cache.putIfUnchanged(id, s, stamp);
         }
+        return s;
     }
 
-    // Update
-    public void updateMarks(int id, double marks) throws Exception {
-        PreparedStatement ps = con.prepareStatement("UPDATE Student SET Marks=? WHERE StudentID=?");
-        ps.setDouble(1, marks);
-        ps.setInt(2, id);
-        ps.executeUpdate();
-        System.out.println("✅ Marks updated!");
+    private Student loadStudent(int id) throws Exception {
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("SELECT * FROM Student WHERE StudentID=?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toStudent(rs) : null;
+            }
+        }
     }
 
-    // Delete
-    public void deleteStudent(int id) throws Exception {
-        PreparedStatement ps = con.prepareStatement("DELETE FROM Student WHERE StudentID=?");
-        ps.setInt(1, id);
-        ps.executeUpdate();
-        System.out.println("✅ Student deleted!");
+    // Update (the cached copy is dropped before this returns); returns the number of rows changed
+    public int updateMarks(int id, double marks) throws Exception {
+        int updated;
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("UPDATE Student SET Marks=? WHERE StudentID=?")) {
+            ps.setDouble(1, marks);
+            ps.setInt(2, id);
+            updated = ps.executeUpdate();
+        } finally {
+            invalidate(id);
+        }
+        System.out.println(updated > 0 ? "✅ Marks updated!" : "❌ Student not found.");
+        return updated;
+    }
+
+    // Delete; returns the number of rows deleted
+    public int deleteStudent(int id) throws Exception {
+        int deleted;
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement("DELETE FROM Student WHERE StudentID=?")) {
+            ps.setInt(1, id);
+            deleted = ps.executeUpdate();
+        } finally {
+            invalidate(id);
+        }
+        System.out.println(deleted > 0 ? "✅ Student deleted!" : "❌ Student not found.");
+        return deleted;
+    }
+
+    private void invalidate(int id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
     }
 }
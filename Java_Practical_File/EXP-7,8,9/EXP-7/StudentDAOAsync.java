@@ -0,0 +1,98 @@
+package controller;
+
+import java.util.*;
+import java.util.concurrent.*;
+import model.Student;
+
+/*
+ * Non-blocking facade over StudentDAO (needs Java 21).
+ *
+ * Every call runs as its own task on a virtual thread and returns a
+ * CompletableFuture straight away; the task borrows its own pool connection
+ * through the DAO. At most maxConcurrency tasks talk to the database at once,
+ * the rest wait on a semaphore, which costs a parked virtual thread and no
+ * platform thread. Keep maxConcurrency at or below the pool's maxSize
+ * (-Ddb.pool.maxSize) so tasks wait here instead of timing out in the pool.
+ */
+public class StudentDAOAsync implements AutoCloseable {
+    private final StudentDAO dao;
+    private final ExecutorService executor;
+    private final Semaphore limit;
+
+    public StudentDAOAsync(StudentDAO dao, int maxConcurrency) {
+        this(dao, Executors.newVirtualThreadPerTaskExecutor(), maxConcurrency);
+    }
+
+    // Runs the tasks on another executor (e.g. a fixed thread pool, for comparison)
+    public StudentDAOAsync(StudentDAO dao, ExecutorService executor, int maxConcurrency) {
+        this.dao = dao;
+        this.executor = executor;
+        this.limit = new Semaphore(maxConcurrency);
+    }
+
+    public CompletableFuture<Void> addStudent(Student s) {
+        return supply(() -> {
+            dao.addStudent(s);
+            return null;
+        });
+    }
+
+    public CompletableFuture<StudentDAO.BulkResult> addStudents(Iterable<Student> students) {
+        return supply(() -> dao.addStudents(students));
+    }
+
+    // Completes with null if there is no such student
+    public CompletableFuture<Student> getStudent(int id) {
+        return supply(() -> dao.getStudent(id));
+    }
+
+    public CompletableFuture<List<Student>> getStudentsPage(int afterId, int pageSize) {
+        return supply(() -> dao.getStudentsPage(afterId, pageSize));
+    }
+
+    // Completes with the number of rows changed
+    public CompletableFuture<Integer> updateMarks(int id, double marks) {
+        return supply(() -> dao.updateMarks(id, marks));
+    }
+
+    public CompletableFuture<Integer> deleteStudent(int id) {
+        return supply(() -> dao.deleteStudent(id));
+    }
+
+    // Runs any other DAO work under the same executor and concurrency limit
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                limit.acquire();
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                limit.release();
+            }
+        });
+        return result;
+    }
+
+    // Tasks waiting for a slot under the concurrency limit
+    public int getQueueLength() {
+        return limit.getQueueLength();
+    }
+
+    // Lets the submitted tasks finish, then stops the executor
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
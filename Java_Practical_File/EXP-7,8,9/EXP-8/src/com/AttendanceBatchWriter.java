@@ -0,0 +1,195 @@
+package com.example;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*
+ * Background writer for attendance rows.
+ *
+ * offer() puts a row on a bounded queue and returns false when it is full.
+ * One thread takes up to batchSize rows, waiting at most lingerMillis after the
+ * first one for more to arrive, and inserts them as one JDBC batch in one
+ * transaction. Each row's callback runs after that commit with null, or with
+ * the exception if the row could not be stored: when a batch fails it is rolled
+ * back and its rows are inserted one by one, so one bad row does not fail the others.
+ * An unexpected RuntimeException fails the rows of that batch still waiting for
+ * their callback, and the writer goes on with the next batch.
+ */
+public class AttendanceBatchWriter implements AutoCloseable {
+    static final String INSERT = "INSERT INTO Attendance (StudentID, Date, Status) VALUES (?, ?, ?)";
+
+    public static class Row {
+        final int studentId;
+        final java.sql.Date date;
+        final String status;
+        final Consumer<Exception> done;
+        boolean finished;   // done has run; only the writer thread touches it
+
+        public Row(int studentId, java.sql.Date date, String status, Consumer<Exception> done) {
+            this.studentId = studentId;
+            this.date = date;
+            this.status = status;
+            this.done = done;
+        }
+    }
+
+    private final ConnectionProvider db;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final ArrayBlockingQueue<Row> queue;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public AttendanceBatchWriter(ConnectionProvider db, int capacity, int batchSize, long lingerMillis) {
+        this.db = db;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        writer = new Thread(this::run, "attendance-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // False if the queue is full (or the writer stopped); the caller should ask the client to retry
+    public boolean offer(Row row) {
+        if (closed || !queue.offer(row)) {
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        return true;
+    }
+
+    private void run() {
+        List<Row> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Row first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    Row next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        // Linger is over: take whatever is already there
+                        queue.drainTo(batch, batchSize - batch.size());
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Treated like close(): write what is queued, then stop
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    // A driver or pool bug must not stop the writer and strand every later row
+                    for (Row row : batch) {
+                        if (!row.finished) {
+                            failed.increment();
+                            finish(row, e);
+                        }
+                    }
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void write(List<Row> batch) {
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(INSERT)) {
+            con.setAutoCommit(false);
+            try {
+                for (Row row : batch) {
+                    bind(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+                batches.increment();
+                written.add(batch.size());
+                for (Row row : batch) {
+                    finish(row, null);
+                }
+                return;
+            } catch (SQLException e) {
+                con.rollback();
+                ps.clearBatch();
+            }
+
+            // Find the bad rows: one transaction per row
+            con.setAutoCommit(true);
+            for (Row row : batch) {
+                try {
+                    bind(ps, row);
+                    ps.executeUpdate();
+                    written.increment();
+                    finish(row, null);
+                } catch (SQLException e) {
+                    failed.increment();
+                    finish(row, e);
+                }
+            }
+        } catch (SQLException e) {
+            // No connection: every row of the batch fails
+            failed.add(batch.size());
+            for (Row row : batch) {
+                finish(row, e);
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Row row) throws SQLException {
+        ps.setInt(1, row.studentId);
+        ps.setDate(2, row.date);
+        ps.setString(3, row.status);
+    }
+
+    private static void finish(Row row, Exception error) {
+        row.finished = true;
+        try {
+            row.done.accept(error);
+        } catch (RuntimeException e) {
+            // e.g. the request already timed out; the row itself is stored
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public String stats() {
+        return String.format("attendanceWriter queued=%d accepted=%d rejected=%d written=%d failed=%d batches=%d "
+                             + "avgBatch=%.1f", queue.size(), accepted.sum(), rejected.sum(), written.sum(),
+                             failed.sum(), batches.sum(),
+                             batches.sum() == 0 ? 0.0 : (double) written.sum() / batches.sum());
+    }
+
+    // Stops taking rows and writes the ones already queued
+    @Override
+    public void close() {
+        // The writer notices within one poll (100 ms) plus the linger time
+        closed = true;
+        try {
+            writer.join(30_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
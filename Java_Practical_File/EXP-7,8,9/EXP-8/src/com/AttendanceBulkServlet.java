@@ -0,0 +1,433 @@
+package com.example;
+
+import java.io.*;
+import java.sql.*;
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+/*
+ * Bulk attendance upload: POST a file of (StudentID, Date, Status) rows as the request body.
+ *
+ *   curl --data-binary @attendance.csv -H "Content-Type: text/csv" .../AttendanceBulkServlet
+ *   curl --data-binary @attendance.ndjson -H "Content-Type: application/x-ndjson" .../AttendanceBulkServlet
+ *
+ * CSV is one "StudentID,Date,Status" per line (a first line starting with the field name
+ * StudentID is a header and skipped; any other bad line is an error); NDJSON is one
+ * {"StudentID":1,"Date":"2024-01-15","Status":"Present"} per line. ?format=csv|ndjson
+ * overrides the Content-Type.
+ *
+ * The body is read line by line and only chunkSize rows are held at a time, so a file
+ * of any length uses the same memory. A line longer than maxLineLength characters is
+ * skipped to its end without being kept and counts as a failed row, so a body without
+ * newlines cannot fill the heap. Each chunk is one JDBC batch in one transaction;
+ * if it fails it is rolled back and its rows are inserted one by one to find the bad ones.
+ * The answer is JSON with the counts and the first maxErrors errors by line number.
+ * Init-params: chunkSize (500), maxErrors (100), maxLineLength (1024).
+ */
+public class AttendanceBulkServlet extends HttpServlet {
+    private int chunkSize;
+    private int maxErrors;
+    private int maxLineLength;
+
+    @Override
+    public void init() throws ServletException {
+        chunkSize = intParam("chunkSize", 500);
+        maxErrors = intParam("maxErrors", 100);
+        maxLineLength = intParam("maxLineLength", 1024);
+    }
+
+    private int intParam(String name, int defaultValue) {
+        String value = getInitParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+    throws ServletException, IOException {
+        String format = request.getParameter("format");
+        if (format == null) {
+            String type = request.getContentType();
+            format = type != null && type.toLowerCase().contains("json") ? "ndjson" : "csv";
+        }
+        if (!format.equals("csv") && !format.equals("ndjson")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be csv or ndjson");
+            return;
+        }
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+
+        Upload upload = new Upload(chunkSize, maxErrors);
+        String fatal = null;
+        try (Connection con = ConnectionProvider.forDatabase("schooldb", "root", "password").getConnection();
+             PreparedStatement ps = con.prepareStatement(AttendanceBatchWriter.INSERT)) {
+            con.setAutoCommit(false);
+            LineReader in = new LineReader(request.getReader(), maxLineLength);
+            String line;
+            int lineNo = 0;
+            boolean first = true;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (in.tooLong) {
+                    first = false;
+                    upload.rows++;
+                    upload.error(lineNo, "line longer than " + maxLineLength + " characters");
+                    continue;
+                }
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (first) {
+                    first = false;
+                    if (format.equals("csv") && isHeader(line)) {
+                        continue;
+                    }
+                }
+                upload.rows++;
+                try {
+                    if (format.equals("csv")) {
+                        upload.addCsv(lineNo, line);
+                    } else {
+                        upload.addJson(lineNo, line);
+                    }
+                } catch (IllegalArgumentException e) {
+                    upload.error(lineNo, e.getMessage());
+                    continue;
+                }
+                if (upload.size == chunkSize) {
+                    upload.flush(con, ps);
+                }
+            }
+            upload.flush(con, ps);
+        } catch (SQLException e) {
+            // Lost the connection: the chunks already committed stay, the rest is not stored
+            fatal = e.getMessage();
+        }
+
+        response.setStatus(fatal == null ? HttpServletResponse.SC_OK : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        response.setContentType("application/json;charset=UTF-8");
+        PrintWriter out = response.getWriter();
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"rows\":").append(upload.rows)
+            .append(",\"inserted\":").append(upload.inserted)
+            .append(",\"failed\":").append(upload.errorCount)
+            .append(",\"chunks\":").append(upload.chunks);
+        if (fatal != null) {
+            json.append(",\"error\":");
+            quote(json, fatal);
+        }
+        json.append(",\"errors\":[");
+        for (int i = 0; i < upload.errorsShown; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"line\":").append(upload.errorLines[i]).append(",\"error\":");
+            quote(json, upload.errorMessages[i]);
+            json.append('}');
+        }
+        json.append("],\"errorsTruncated\":").append(upload.errorCount > upload.errorsShown).append('}');
+        out.println(json);
+    }
+
+    /*
+     * readLine() with a limit: keeps at most maxLength characters of a line and skips the
+     * rest up to the next '\n', setting tooLong. A trailing '\r' is left for trim().
+     */
+    static final class LineReader {
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buf = new char[8192];
+        private int pos;
+        private int limit;
+        private final StringBuilder line = new StringBuilder(128);
+        boolean tooLong;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean any = false;
+            while (true) {
+                if (pos == limit) {
+                    int n = in.read(buf, 0, buf.length);
+                    pos = 0;
+                    limit = Math.max(n, 0);
+                    if (n < 0) {
+                        return any ? line.toString() : null;
+                    }
+                }
+                any = true;
+                int start = pos;
+                while (pos < limit && buf[pos] != '\n') {
+                    pos++;
+                }
+                int keep = Math.min(pos - start, maxLength - line.length());
+                if (keep < pos - start) {
+                    tooLong = true;
+                }
+                line.append(buf, start, keep);
+                if (pos < limit) {
+                    pos++; // the '\n'
+                    return line.toString();
+                }
+            }
+        }
+    }
+
+    // "StudentID,..." possibly quoted or after a byte order mark; a mistyped first row is not a header
+    static boolean isHeader(String line) {
+        int comma = line.indexOf(',');
+        String field = (comma < 0 ? line : line.substring(0, comma)).replace("\uFEFF", "").replace("\"", "").trim();
+        return field.equalsIgnoreCase("StudentID");
+    }
+
+    // One request's rows: the current chunk plus the counters and the first errors
+    static class Upload {
+        final int[] lines;
+        final int[] studentIds;
+        final java.sql.Date[] dates;
+        final String[] statuses;
+        int size;
+
+        final int[] errorLines;
+        final String[] errorMessages;
+        int errorsShown;
+
+        long rows;
+        long inserted;
+        long errorCount;
+        long chunks;
+
+        Upload(int chunkSize, int maxErrors) {
+            lines = new int[chunkSize];
+            studentIds = new int[chunkSize];
+            dates = new java.sql.Date[chunkSize];
+            statuses = new String[chunkSize];
+            errorLines = new int[maxErrors];
+            errorMessages = new String[maxErrors];
+        }
+
+        void addCsv(int lineNo, String line) {
+            String[] fields = line.split(",", -1);
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("expected StudentID,Date,Status");
+            }
+            add(lineNo, unquote(fields[0]), unquote(fields[1]), unquote(fields[2]));
+        }
+
+        void addJson(int lineNo, String line) {
+            String id = null, date = null, status = null;
+            JsonLine json = new JsonLine(line);
+            json.expect('{');
+            if (!json.skip('}')) {
+                do {
+                    String key = json.string();
+                    json.expect(':');
+                    String value = json.value();
+                    if (key.equalsIgnoreCase("studentId")) {
+                        id = value;
+                    } else if (key.equalsIgnoreCase("date")) {
+                        date = value;
+                    } else if (key.equalsIgnoreCase("status")) {
+                        status = value;
+                    }
+                } while (json.skip(','));
+                json.expect('}');
+            }
+            json.end();
+            add(lineNo, id, date, status);
+        }
+
+        private void add(int lineNo, String id, String date, String status) {
+            int studentId;
+            try {
+                studentId = Integer.parseInt(id.trim());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("StudentID must be a number");
+            }
+            java.sql.Date day;
+            try {
+                day = java.sql.Date.valueOf(date.trim());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Date must be yyyy-mm-dd");
+            }
+            if (status == null || status.trim().isEmpty()) {
+                throw new IllegalArgumentException("Status is missing");
+            }
+            lines[size] = lineNo;
+            studentIds[size] = studentId;
+            dates[size] = day;
+            statuses[size] = status.trim();
+            size++;
+        }
+
+        void flush(Connection con, PreparedStatement ps) throws SQLException {
+            if (size == 0) {
+                return;
+            }
+            chunks++;
+            try {
+                for (int i = 0; i < size; i++) {
+                    bind(ps, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                con.commit();
+                inserted += size;
+            } catch (SQLException e) {
+                con.rollback();
+                ps.clearBatch();
+                // Find the bad rows: one transaction per row
+                for (int i = 0; i < size; i++) {
+                    try {
+                        bind(ps, i);
+                        ps.executeUpdate();
+                        con.commit();
+                        inserted++;
+                    } catch (SQLException rowError) {
+                        con.rollback();
+                        error(lines[i], rowError.getMessage());
+                    }
+                }
+            }
+            java.util.Arrays.fill(dates, 0, size, null);
+            java.util.Arrays.fill(statuses, 0, size, null);
+            size = 0;
+        }
+
+        private void bind(PreparedStatement ps, int i) throws SQLException {
+            ps.setInt(1, studentIds[i]);
+            ps.setDate(2, dates[i]);
+            ps.setString(3, statuses[i]);
+        }
+
+        void error(int lineNo, String message) {
+            if (errorsShown < errorLines.length) {
+                errorLines[errorsShown] = lineNo;
+                errorMessages[errorsShown] = message;
+                errorsShown++;
+            }
+            errorCount++;
+        }
+    }
+
+    private static String unquote(String field) {
+        field = field.trim();
+        if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+            field = field.substring(1, field.length() - 1).replace("\"\"", "\"");
+        }
+        return field;
+    }
+
+    // Just enough JSON for one flat object per line: string, number, true/false/null values
+    static class JsonLine {
+        private final String text;
+        private int pos;
+
+        JsonLine(String text) {
+            this.text = text;
+        }
+
+        private void space() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean skip(char c) {
+            space();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!skip(c)) {
+                throw new IllegalArgumentException("bad JSON: expected '" + c + "' at column " + (pos + 1));
+            }
+        }
+
+        void end() {
+            space();
+            if (pos != text.length()) {
+                throw new IllegalArgumentException("bad JSON: unexpected text at column " + (pos + 1));
+            }
+        }
+
+        String value() {
+            space();
+            if (pos < text.length() && text.charAt(pos) == '"') {
+                return string();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}".indexOf(text.charAt(pos)) < 0
+                   && !Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("[")) {
+                throw new IllegalArgumentException("bad JSON: expected a value at column " + (start + 1));
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder s = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return s.toString();
+                }
+                if (c != '\\') {
+                    s.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char e = text.charAt(pos++);
+                switch (e) {
+                    case 'n': s.append('\n'); break;
+                    case 't': s.append('\t'); break;
+                    case 'r': s.append('\r'); break;
+                    case 'b': s.append('\b'); break;
+                    case 'f': s.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("bad JSON: short \\u escape");
+                        }
+                        try {
+                            s.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw new IllegalArgumentException("bad JSON: bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: s.append(e); // \" \\ \/
+                }
+            }
+            throw new IllegalArgumentException("bad JSON: unterminated string");
+        }
+    }
+
+    static void quote(StringBuilder json, String text) {
+        json.append('"');
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+}
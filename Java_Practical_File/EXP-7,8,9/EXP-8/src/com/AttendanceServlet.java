@@ -2,12 +2,54 @@ package com.example;
 
 import java.io.*;
 import java.sql.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
+/*
+ * With the init-param mode=async (web.xml) a post does not wait for its own
+ * INSERT: the row goes on the AttendanceBatchWriter queue, the container thread
+ * is released (startAsync), and the request is answered once the batch holding
+ * the row has committed. A full queue answers 429 with Retry-After.
+ * The timeout and the writer's callback race to answer; whichever comes first
+ * does, the other finds the request already answered and does nothing.
+ * Init-params: queueCapacity, batchSize, lingerMillis, timeoutMillis.
+ */
 public class AttendanceServlet extends HttpServlet {
+    private AttendanceBatchWriter writer;
+    private long timeoutMillis;
+
+    @Override
+    public void init() throws ServletException {
+        if ("async".equals(getInitParameter("mode"))) {
+            writer = new AttendanceBatchWriter(ConnectionProvider.forDatabase("schooldb", "root", "password"),
+                                               intParam("queueCapacity", 10_000),
+                                               intParam("batchSize", 200),
+                                               intParam("lingerMillis", 20));
+            timeoutMillis = intParam("timeoutMillis", 30_000);
+        }
+    }
+
+    private int intParam(String name, int defaultValue) {
+        String value = getInitParameter(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public void destroy() {
+        if (writer != null) {
+            writer.close();
+            log(writer.stats());
+        }
+    }
+
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
     throws ServletException, IOException {
+        if (writer != null) {
+            enqueue(request, response);
+            return;
+        }
+
         response.setContentType("text/html");
         PrintWriter out = response.getWriter();
 
@@ -16,23 +58,80 @@ public class AttendanceServlet extends HttpServlet {
         String status = request.getParameter("status");
 
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection con = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/schooldb", "root", "password");
-
-            PreparedStatement ps = con.prepareStatement(
-                "INSERT INTO Attendance (StudentID, Date, Status) VALUES (?, ?, ?)");
-            ps.setString(1, id);
-            ps.setString(2, date);
-            ps.setString(3, status);
-            ps.executeUpdate();
+            // The connection goes back to the pool before the page is rendered
+            try (Connection con = ConnectionProvider.forDatabase("schooldb", "root", "password").getConnection();
+                 PreparedStatement ps = con.prepareStatement(
+                     "INSERT INTO Attendance (StudentID, Date, Status) VALUES (?, ?, ?)")) {
+                ps.setString(1, id);
+                ps.setString(2, date);
+                ps.setString(3, status);
+                ps.executeUpdate();
+            }
 
             RequestDispatcher rd = request.getRequestDispatcher("success.jsp");
             rd.forward(request, response);
-
-            con.close();
         } catch (Exception e) {
             out.println("Error: " + e.getMessage());
         }
     }
+
+    private void enqueue(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int studentId;
+        java.sql.Date date;
+        try {
+            studentId = Integer.parseInt(request.getParameter("studentId").trim());
+            date = java.sql.Date.valueOf(request.getParameter("date").trim());
+        } catch (RuntimeException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "studentId must be a number and date yyyy-mm-dd");
+            return;
+        }
+        String status = request.getParameter("status");
+
+        AsyncContext ctx = request.startAsync();
+        AtomicBoolean answered = new AtomicBoolean();
+        ctx.setTimeout(timeoutMillis);
+        ctx.addListener(new AsyncListener() {
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (!answered.compareAndSet(false, true)) {
+                    return;
+                }
+                // The row may still be written later; the client only stops waiting
+                ((HttpServletResponse) ctx.getResponse()).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                                                                    "Attendance not confirmed in time");
+                ctx.complete();
+            }
+
+            public void onComplete(AsyncEvent event) {}
+
+            public void onError(AsyncEvent event) {
+                answered.set(true);   // the client is gone, nothing left to answer
+            }
+
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        boolean queued = writer.offer(new AttendanceBatchWriter.Row(studentId, date, status, error -> {
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            if (error == null) {
+                ctx.dispatch("/success.jsp");
+                return;
+            }
+            try {
+                HttpServletResponse resp = (HttpServletResponse) ctx.getResponse();
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                resp.setContentType("text/html");
+                resp.getWriter().println("Error: " + error.getMessage());
+            } catch (IOException ignored) {
+            } finally {
+                ctx.complete();
+            }
+        }));
+        if (!queued && answered.compareAndSet(false, true)) {
+            response.setHeader("Retry-After", "1");
+            response.sendError(429, "Too many attendance requests, try again");
+            ctx.complete();
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.example;
+
+import javax.servlet.*;
+
+/*
+ * Closes the shared connection pools when the web app stops, so their
+ * pool-housekeeper threads and connections do not outlive an undeploy.
+ * Servlets are destroyed before this runs, so the batch writers are done with them.
+ */
+public class ConnectionPoolListener implements ServletContextListener {
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        ConnectionProvider.closeAll();
+    }
+}
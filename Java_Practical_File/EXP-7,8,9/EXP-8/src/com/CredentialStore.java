@@ -0,0 +1,164 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.spec.KeySpec;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.*;
+import javax.crypto.spec.*;
+
+/*
+ * User names with PBKDF2 password hashes (salted, -Dlogin.pbkdf2.iterations, default
+ * 100000), so checking a password is deliberately slow.
+ *
+ * A successful check is remembered for ttlMillis (-Dlogin.cache.ttlMillis) as an HMAC of
+ * the user and password under a random key made at startup, never the password itself.
+ * A user logging in again with the same password inside that time skips the hash.
+ * Failures are not remembered, so guessing always pays the full cost.
+ */
+public class CredentialStore {
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static class Credential {
+        final byte[] salt;
+        final byte[] hash;
+        final int iterations;
+
+        Credential(byte[] salt, byte[] hash, int iterations) {
+            this.salt = salt;
+            this.hash = hash;
+            this.iterations = iterations;
+        }
+    }
+
+    private static class Verified {
+        final byte[] tag;
+        final long expiresAt;
+
+        Verified(byte[] tag, long expiresAt) {
+            this.tag = tag;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int iterations;
+    private final long ttlMillis;
+    private final int maxCached;
+    private final ConcurrentHashMap<String, Credential> users = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadLocal<Mac> mac;
+    private final Credential dummy;
+
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public CredentialStore(int iterations, long ttlMillis, int maxCached) {
+        this.iterations = iterations;
+        this.ttlMillis = ttlMillis;
+        this.maxCached = maxCached;
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        SecretKeySpec macKey = new SecretKeySpec(key, "HmacSHA256");
+        mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac m = Mac.getInstance("HmacSHA256");
+                m.init(macKey);
+                return m;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        dummy = hash("dummy-password", salt(), iterations);
+    }
+
+    // The users the practical always had
+    public static CredentialStore withDefaultUsers() {
+        CredentialStore store = new CredentialStore(Integer.getInteger("login.pbkdf2.iterations", 100_000),
+                                                    Long.getLong("login.cache.ttlMillis", 60_000),
+                                                    Integer.getInteger("login.cache.size", 10_000));
+        store.setPassword("admin", "1234");
+        return store;
+    }
+
+    public void setPassword(String user, String password) {
+        Credential c = hash(password, salt(), iterations);
+        synchronized (verified) {
+            users.put(user, c);
+            verified.remove(user);
+        }
+    }
+
+    // True only if this user and password were verified within ttlMillis; never hashes
+    public boolean verifyCached(String user, String password) {
+        Verified v = verified.get(user);
+        if (v != null && System.currentTimeMillis() < v.expiresAt && MessageDigest.isEqual(v.tag, tag(user, password))) {
+            cacheHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public boolean verify(String user, String password) {
+        if (verifyCached(user, password)) {
+            return true;
+        }
+        byte[] tag = tag(user, password);
+
+        Credential stored = users.get(user);
+        // Unknown users cost the same as wrong passwords, so timing does not tell which names exist
+        Credential c = stored != null ? stored : dummy;
+        boolean ok = MessageDigest.isEqual(c.hash, hash(password, c.salt, c.iterations).hash) && stored != null;
+        if (!ok) {
+            failures.increment();
+            return false;
+        }
+        if (verified.size() >= maxCached) {
+            long now = System.currentTimeMillis();
+            verified.values().removeIf(e -> now >= e.expiresAt);
+            if (verified.size() >= maxCached) {
+                return true; // still full of live entries: just don't cache this one
+            }
+        }
+        synchronized (verified) {
+            // Only cache if the password was not changed meanwhile
+            if (users.get(user) == stored) {
+                verified.put(user, new Verified(tag, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return true;
+    }
+
+    private byte[] salt() {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    private Credential hash(String password, byte[] salt, int rounds) {
+        hashed.increment();
+        try {
+            KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+            byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            return new Credential(salt, hash, rounds);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] tag(String user, String password) {
+        Mac m = mac.get();
+        m.update(user.getBytes(StandardCharsets.UTF_8));
+        m.update((byte) 0);
+        return m.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String stats() {
+        return String.format("credentials users=%d iterations=%d cached=%d/%d cacheHits=%d hashed=%d failures=%d",
+                             users.size(), iterations, verified.size(), maxCached, cacheHits.sum(), hashed.sum(),
+                             failures.sum());
+    }
+}
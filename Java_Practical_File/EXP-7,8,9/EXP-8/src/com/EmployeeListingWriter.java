@@ -0,0 +1,122 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.*;
+
+/*
+ * Non-blocking full listing for EmployeeServlet (Servlet 3.1 WriteListener).
+ *
+ * The container calls onWritePossible() whenever the client can take more. Each
+ * call fetches the next chunkRows employees after the last EmpID sent (keyset,
+ * so no cursor stays open), returns the connection to the pool, and writes
+ * them as long as isReady() is true. When the client is slow isReady() turns
+ * false and the thread goes back to the container: a slow reader holds neither
+ * a thread nor a connection while it catches up.
+ */
+public class EmployeeListingWriter implements WriteListener {
+    static final String SQL = "SELECT EmpID, Name, Salary FROM Employee WHERE EmpID > ? ORDER BY EmpID LIMIT ?";
+
+    static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+    static final AtomicInteger IN_CALLBACK = new AtomicInteger();
+    static final LongAdder COMPLETED = new LongAdder();
+    static final LongAdder ABORTED = new LongAdder();
+    static final LongAdder CHUNKS = new LongAdder();
+
+    private final AsyncContext ctx;
+    private final ServletOutputStream out;
+    private final ConnectionProvider db;
+    private final int chunkRows;
+    private final StringBuilder html = new StringBuilder(16 * 1024);
+
+    private int lastId = Integer.MIN_VALUE;
+    private boolean started;
+    private boolean allRead;
+
+    EmployeeListingWriter(AsyncContext ctx, ServletOutputStream out, ConnectionProvider db, int chunkRows) {
+        this.ctx = ctx;
+        this.out = out;
+        this.db = db;
+        this.chunkRows = chunkRows;
+    }
+
+    // Starts the listing on an async request; the container takes it from here
+    static void start(AsyncContext ctx, ConnectionProvider db, int chunkRows, long timeoutMillis) throws IOException {
+        IN_FLIGHT.incrementAndGet();
+        ctx.setTimeout(timeoutMillis);
+        ctx.addListener(new AsyncListener() {
+            public void onComplete(AsyncEvent event) { IN_FLIGHT.decrementAndGet(); }
+            public void onTimeout(AsyncEvent event) { ABORTED.increment(); event.getAsyncContext().complete(); }
+            public void onError(AsyncEvent event) {}
+            public void onStartAsync(AsyncEvent event) {}
+        });
+        ServletOutputStream out = ctx.getResponse().getOutputStream();
+        out.setWriteListener(new EmployeeListingWriter(ctx, out, db, chunkRows));
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        IN_CALLBACK.incrementAndGet();
+        try {
+            while (out.isReady()) {
+                if (allRead) {
+                    // Everything written and flushed
+                    COMPLETED.increment();
+                    ctx.complete();
+                    return;
+                }
+                out.write(nextChunk());
+            }
+        } finally {
+            IN_CALLBACK.decrementAndGet();
+        }
+    }
+
+    private byte[] nextChunk() {
+        html.setLength(0);
+        if (!started) {
+            html.append("<table border='1'><tr><th>ID</th><th>Name</th><th>Salary</th></tr>\n");
+            started = true;
+        }
+        int rows = 0;
+        try (Connection con = db.getConnection();
+             PreparedStatement ps = con.prepareStatement(SQL)) {
+            ps.setInt(1, lastId);
+            ps.setInt(2, chunkRows);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getInt(1);
+                    html.append("<tr><td>").append(lastId).append("</td><td>");
+                    EmployeeServlet.escape(html, rs.getString(2));
+                    html.append("</td><td>").append(rs.getDouble(3)).append("</td></tr>\n");
+                    rows++;
+                }
+            }
+        } catch (SQLException e) {
+            html.append("Error: ").append(e.getMessage()).append('\n');
+            allRead = true;
+            return html.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        CHUNKS.increment();
+        if (rows < chunkRows) {
+            html.append("</table>\n");
+            allRead = true;
+        }
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // Usually the client went away
+        ABORTED.increment();
+        ctx.complete();
+    }
+
+    static String stats() {
+        return String.format("nonBlockingListings inFlight=%d inCallback=%d completed=%d aborted=%d chunks=%d",
+                             IN_FLIGHT.get(), IN_CALLBACK.get(), COMPLETED.sum(), ABORTED.sum(), CHUNKS.sum());
+    }
+}
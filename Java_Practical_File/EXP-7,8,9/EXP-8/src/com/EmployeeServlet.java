@@ -1,41 +1,173 @@
 package com.example;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
+/*
+ * ?empid=N answers from a ResponseCache (-Demployee.cache.size, -Demployee.cache.ttlMillis)
+ * with an ETag, so a browser that sends If-None-Match gets a 304 without a body.
+ * Without empid the whole table is streamed: rows are fetched fetchSize at a time
+ * and the response goes out in chunks as its buffer fills.
+ *
+ * With the init-param listing=nonblocking the listing is written by
+ * EmployeeListingWriter instead, so a slow client does not keep a thread and a
+ * connection busy.
+ *
+ * Only when the server runs with -Demployee.debug=true: ?listing=blocking|nonblocking
+ * overrides the init-param for one request, and ?stats shows listings in flight,
+ * the cache and the pool. Otherwise ?listing is ignored and ?stats is a 404.
+ */
 public class EmployeeServlet extends HttpServlet {
+    static final ResponseCache CACHE = new ResponseCache(Integer.getInteger("employee.cache.size", 10_000),
+                                                         Long.getLong("employee.cache.ttlMillis", 60_000));
+    static final int FETCH_SIZE = Integer.getInteger("db.fetchSize", 500);
+    static final boolean DEBUG = Boolean.getBoolean("employee.debug");
+
+    private static final String HEADER = "<table border='1'><tr><th>ID</th><th>Name</th><th>Salary</th></tr>";
+    // Blocking listings running now, i.e. container threads stuck writing to a client
+    private static final AtomicInteger BLOCKING_IN_FLIGHT = new AtomicInteger();
+
+    private String listing;
+    private long listingTimeoutMillis;
+
+    @Override
+    public void init() throws ServletException {
+        listing = getInitParameter("listing") != null ? getInitParameter("listing") : "blocking";
+        String timeout = getInitParameter("listingTimeoutMillis");
+        listingTimeoutMillis = timeout == null ? 600_000 : Long.parseLong(timeout.trim());
+    }
+
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
     throws ServletException, IOException {
-        response.setContentType("text/html");
-        PrintWriter out = response.getWriter();
         String id = request.getParameter("empid");
+        String mode = DEBUG && request.getParameter("listing") != null ? request.getParameter("listing") : listing;
+        if (request.getParameter("stats") != null) {
+            if (DEBUG) {
+                stats(response);
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        } else if (id != null && !id.trim().isEmpty()) {
+            lookup(id.trim(), request, response);
+        } else if ("nonblocking".equals(mode)) {
+            if (!request.isAsyncSupported()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                   "nonblocking listing needs <async-supported>true</async-supported> in web.xml");
+                return;
+            }
+            response.setContentType("text/html;charset=UTF-8");
+            EmployeeListingWriter.start(request.startAsync(), ConnectionProvider.forDatabase("companydb", "root", "password"),
+                                        FETCH_SIZE, listingTimeoutMillis);
+        } else {
+            BLOCKING_IN_FLIGHT.incrementAndGet();
+            try {
+                listAll(response);
+            } finally {
+                BLOCKING_IN_FLIGHT.decrementAndGet();
+            }
+        }
+    }
 
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection con = DriverManager.getConnection(
-                "jdbc:mysql://localhost:3306/companydb", "root", "password");
+    private void stats(HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+        out.println("blockingListings inFlight=" + BLOCKING_IN_FLIGHT.get());
+        out.println(EmployeeListingWriter.stats());
+        out.println(CACHE.stats());
+        out.println(ConnectionProvider.forDatabase("companydb", "root", "password").stats());
+    }
 
-            Statement st = con.createStatement();
-            ResultSet rs;
+    private void lookup(String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        int empId;
+        try {
+            empId = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "empid must be a number");
+            return;
+        }
 
-            if (id != null && !id.isEmpty()) {
-                rs = st.executeQuery("SELECT * FROM Employee WHERE EmpID=" + id);
-            } else {
-                rs = st.executeQuery("SELECT * FROM Employee");
+        String key = String.valueOf(empId);
+        ResponseCache.Page page = CACHE.get(key);
+        if (page == null) {
+            long version = CACHE.version();
+            StringBuilder html = new StringBuilder(256).append(HEADER).append('\n');
+            try (Connection con = ConnectionProvider.forDatabase("companydb", "root", "password").getConnection();
+                 PreparedStatement ps = con.prepareStatement("SELECT EmpID, Name, Salary FROM Employee WHERE EmpID=?")) {
+                ps.setInt(1, empId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        appendRow(html, rs);
+                    }
+                }
+            } catch (SQLException e) {
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                response.setContentType("text/html");
+                response.getWriter().println("Error: " + e.getMessage());
+                return;
             }
+            html.append("</table>\n");
+            page = CACHE.put(key, html.toString().getBytes(StandardCharsets.UTF_8), version);
+        }
+
+        response.setHeader("ETag", page.etag);
+        response.setHeader("Cache-Control", "no-cache"); // may be stored, but revalidated with the ETag
+        if (CACHE.notModified(request.getHeader("If-None-Match"), page.etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType("text/html;charset=UTF-8");
+        response.setContentLength(page.body.length);
+        response.getOutputStream().write(page.body);
+    }
+
+    private void listAll(HttpServletResponse response) throws IOException {
+        response.setContentType("text/html;charset=UTF-8");
+        response.setBufferSize(16 * 1024);
+        PrintWriter out = response.getWriter();
+        StringBuilder row = new StringBuilder(128);
 
-            out.println("<table border='1'><tr><th>ID</th><th>Name</th><th>Salary</th></tr>");
-            while (rs.next()) {
-                out.println("<tr><td>" + rs.getInt(1) + "</td><td>" +
-                            rs.getString(2) + "</td><td>" + rs.getDouble(3) + "</td></tr>");
+        try (Connection con = ConnectionProvider.forDatabase("companydb", "root", "password").getConnection();
+             PreparedStatement ps = con.prepareStatement("SELECT EmpID, Name, Salary FROM Employee ORDER BY EmpID")) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                out.println(HEADER);
+                while (rs.next()) {
+                    row.setLength(0);
+                    appendRow(row, rs);
+                    out.write(row.toString());
+                }
             }
             out.println("</table>");
-
-            con.close();
-        } catch (Exception e) {
+        } catch (SQLException e) {
             out.println("Error: " + e.getMessage());
         }
     }
+
+    private static void appendRow(StringBuilder html, ResultSet rs) throws SQLException {
+        html.append("<tr><td>").append(rs.getInt(1)).append("</td><td>");
+        escape(html, rs.getString(2));
+        html.append("</td><td>").append(rs.getDouble(3)).append("</td></tr>\n");
+    }
+
+    static void escape(StringBuilder html, String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<': html.append("&lt;"); break;
+                case '>': html.append("&gt;"); break;
+                case '&': html.append("&amp;"); break;
+                case '"': html.append("&quot;"); break;
+                case '\'': html.append("&#39;"); break;
+                default: html.append(c);
+            }
+        }
+    }
 }
@@ -0,0 +1,388 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.ObjectName;
+
+/*
+ * Per-SQL timing for the connections of one ConnectionProvider.
+ *
+ * Statements from the StatementCache time their execute calls through
+ * execute() inside the proxy they already have; any other statement a pooled
+ * connection creates gets a proxy from wrap(). Result sets are wrapped in a
+ * CountingResultSet to count rows. Each execute call records its latency
+ * (until the driver returns, so for a query until the first rows arrive),
+ * each failed call counts as an error, and the rows read or changed are
+ * added up. All of it is kept per normalised SQL text: literals
+ * become ?, whitespace is collapsed and IN lists are shortened, so
+ * "WHERE id=5" and "WHERE id=7" share one entry.
+ *
+ * Counters are LongAdders and histogram buckets an AtomicLongArray, so
+ * recording never takes a lock. The numbers are visible in JMX
+ * (com.example:type=JdbcMetrics) and printed every -Ddb.metrics.dumpSeconds seconds
+ * (0 = never). -Ddb.metrics=false turns the wrapping off.
+ */
+public class JdbcMetrics implements JdbcMetricsMXBean {
+    private static final int MAX_RAW_SQL = 10_000;
+    private static final AtomicInteger IDS = new AtomicInteger();
+
+    private final String url;
+    private final ConcurrentHashMap<String, SqlStats> byNormalized = new ConcurrentHashMap<>();
+    // Raw SQL text -> its entry, so the same text is only normalised once
+    private final ConcurrentHashMap<String, SqlStats> byRaw = new ConcurrentHashMap<>();
+    private final Histogram poolWait = new Histogram();
+    private final ScheduledExecutorService dumper;
+    private ObjectName name;
+
+    /*
+     * Log-linear latency histogram in nanoseconds: 8 buckets per power of two,
+     * so a percentile is off by at most 1/8 of its value.
+     */
+    static class Histogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(index(nanos));
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        private static int index(long v) {
+            if (v < SUB) {
+                return (int) v;
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+            return (exp - SUB_BITS + 1) * SUB + sub;
+        }
+
+        // Largest value that falls into the bucket
+        private static long upperBound(int index) {
+            if (index < SUB) {
+                return index;
+            }
+            int exp = index / SUB + SUB_BITS - 1;
+            long lower = (long) (SUB + index % SUB) << (exp - SUB_BITS);
+            return lower + (1L << (exp - SUB_BITS)) - 1;
+        }
+
+        long percentile(double p) {
+            long[] snapshot = new long[buckets.length()];
+            long n = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = buckets.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), maxNanos.get());
+                }
+            }
+            return maxNanos.get();
+        }
+
+        long count() { return count.sum(); }
+        long totalNanos() { return totalNanos.sum(); }
+        long maxNanos() { return maxNanos.get(); }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+        }
+    }
+
+    static class SqlStats {
+        final String sql;
+        final Histogram latency = new Histogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+
+        SqlStats(String sql) {
+            this.sql = sql;
+        }
+
+        StatementStats view() {
+            return new StatementStats(sql, latency.count(), errors.sum(), rows.sum(),
+                                      latency.percentile(0.5) / 1000, latency.percentile(0.99) / 1000,
+                                      latency.maxNanos() / 1000, latency.totalNanos() / 1000);
+        }
+    }
+
+    // One row of getStatements(); shown as CompositeData in JMX
+    public static class StatementStats {
+        private final String sql;
+        private final long calls;
+        private final long errors;
+        private final long rows;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+        private final long totalMicros;
+
+        public StatementStats(String sql, long calls, long errors, long rows,
+                              long p50Micros, long p99Micros, long maxMicros, long totalMicros) {
+            this.sql = sql;
+            this.calls = calls;
+            this.errors = errors;
+            this.rows = rows;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+            this.totalMicros = totalMicros;
+        }
+
+        public String getSql() { return sql; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public long getP50Micros() { return p50Micros; }
+        public long getP99Micros() { return p99Micros; }
+        public long getMaxMicros() { return maxMicros; }
+        public long getTotalMicros() { return totalMicros; }
+    }
+
+    public JdbcMetrics(String url, long dumpSeconds) {
+        this.url = url;
+        try {
+            name = new ObjectName(JdbcMetrics.class.getPackageName() + ":type=JdbcMetrics,name="
+                                  + ObjectName.quote(url) + ",id=" + IDS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (Exception e) {
+            System.out.println("⚠️ JDBC metrics not registered in JMX: " + e.getMessage());
+            name = null;
+        }
+        if (dumpSeconds > 0) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "jdbc-metrics-" + url);
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(() -> System.out.println(dump()), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        } else {
+            dumper = null;
+        }
+    }
+
+    // Time a caller waited for the pool to hand out a connection
+    void recordPoolWait(long nanos) {
+        poolWait.record(nanos);
+    }
+
+    SqlStats statsFor(String sql) {
+        SqlStats stats = byRaw.get(sql);
+        if (stats == null) {
+            stats = byNormalized.computeIfAbsent(normalize(sql), SqlStats::new);
+            if (byRaw.size() < MAX_RAW_SQL) {
+                byRaw.put(sql, stats);
+            }
+        }
+        return stats;
+    }
+
+    void close() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+        }
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    // ---- JMX ----
+
+    @Override
+    public List<StatementStats> getStatements() {
+        List<StatementStats> list = new ArrayList<>();
+        for (SqlStats s : byNormalized.values()) {
+            list.add(s.view());
+        }
+        list.sort((a, b) -> Long.compare(b.getTotalMicros(), a.getTotalMicros()));
+        return list;
+    }
+
+    @Override
+    public long getPoolWaitCount() { return poolWait.count(); }
+    @Override
+    public long getPoolWaitP50Micros() { return poolWait.percentile(0.5) / 1000; }
+    @Override
+    public long getPoolWaitP99Micros() { return poolWait.percentile(0.99) / 1000; }
+    @Override
+    public long getPoolWaitMaxMicros() { return poolWait.maxNanos() / 1000; }
+
+    @Override
+    public void reset() {
+        poolWait.reset();
+        for (SqlStats s : byNormalized.values()) {
+            s.latency.reset();
+            s.errors.reset();
+            s.rows.reset();
+        }
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("--- JDBC metrics ").append(url).append(" ---\n");
+        sb.append(String.format("pool wait: %d borrows, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", getPoolWaitCount(),
+                                getPoolWaitP50Micros() / 1000.0, getPoolWaitP99Micros() / 1000.0,
+                                getPoolWaitMaxMicros() / 1000.0));
+        sb.append(String.format("%10s %7s %10s %9s %9s %9s %11s  %s%n",
+                                "calls", "errors", "rows", "p50 ms", "p99 ms", "max ms", "total ms", "sql"));
+        for (StatementStats s : getStatements()) {
+            sb.append(String.format("%10d %7d %10d %9.3f %9.3f %9.3f %11.1f  %s%n", s.getCalls(), s.getErrors(),
+                                    s.getRows(), s.getP50Micros() / 1000.0, s.getP99Micros() / 1000.0,
+                                    s.getMaxMicros() / 1000.0, s.getTotalMicros() / 1000.0, s.getSql()));
+        }
+        return sb.toString();
+    }
+
+    // ---- SQL text ----
+
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int n = sql.length();
+        boolean space = false;
+        for (int i = 0; i < n; i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = out.length() > 0;
+                continue;
+            }
+            if (space) {
+                out.append(' ');
+                space = false;
+            }
+            if (c == '\'') {
+                // String literal, '' is an escaped quote
+                i++;
+                while (i < n && !(sql.charAt(i) == '\'' && (i + 1 >= n || sql.charAt(i + 1) != '\''))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                out.append('?');
+            } else if (Character.isDigit(c) && (out.length() == 0 || !isIdentifierChar(out.charAt(out.length() - 1)))) {
+                while (i + 1 < n && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else {
+                out.append(c);
+            }
+        }
+        return collapseLists(out.toString());
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    // "IN (?, ?, ?)" -> "IN (?, ...)" so IN lists of any length share one entry
+    private static String collapseLists(String sql) {
+        if (sql.indexOf("?,") < 0 && sql.indexOf("? ,") < 0) {
+            return sql;
+        }
+        return sql.replaceAll("(?i)\\bIN ?\\( ?\\?( ?, ?\\?)+ ?\\)", "IN (?, ...)");
+    }
+
+    // ---- recording ----
+
+    /*
+     * Wraps a statement the pool's connection created outside the statement
+     * cache. sql is null for createStatement(); such a statement is looked up
+     * by the SQL passed to each execute call.
+     */
+    Statement wrap(Statement statement, Class<?> type, String sql) {
+        SqlStats prepared = sql == null ? null : statsFor(sql);
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute") || name.equals("getResultSet")) {
+                SqlStats stats = prepared;
+                if (stats == null) {
+                    stats = args != null && args.length > 0 && args[0] instanceof String
+                            ? statsFor((String) args[0]) : statsFor("(statement batch)");
+                }
+                return execute(stats, statement, method, args);
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    // Runs an execute* (or getResultSet) call of a statement and records it under stats
+    static Object execute(SqlStats stats, Statement target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("getResultSet")) {
+            return wrapResultSet((ResultSet) invoke(target, method, args, null), stats);
+        }
+        long start = System.nanoTime();
+        Object result = invoke(target, method, args, stats);
+        stats.latency.record(System.nanoTime() - start);
+        if (result instanceof ResultSet) {
+            return wrapResultSet((ResultSet) result, stats);
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            long count = ((Number) result).longValue();
+            if (count > 0) {
+                stats.rows.add(count);
+            }
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                if (count > 0) {
+                    stats.rows.add(count);
+                }
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                if (count > 0) {
+                    stats.rows.add(count);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args, SqlStats stats) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (stats != null) {
+                stats.errors.increment();
+            }
+            throw e.getCause();
+        }
+    }
+
+    // Counts the rows the caller reads; a plain class, as a Proxy would cost every getXxx() call
+    private static ResultSet wrapResultSet(ResultSet rs, SqlStats stats) {
+        return rs == null ? null : new CountingResultSet(rs, stats);
+    }
+}
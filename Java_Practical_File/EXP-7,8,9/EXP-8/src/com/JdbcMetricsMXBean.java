@@ -0,0 +1,18 @@
+package com.example;
+
+import java.util.List;
+
+// What JdbcMetrics shows in JMX (jconsole: MBeans > com.example > JdbcMetrics)
+public interface JdbcMetricsMXBean {
+    // Slowest first (by total time)
+    List<JdbcMetrics.StatementStats> getStatements();
+
+    long getPoolWaitCount();
+    long getPoolWaitP50Micros();
+    long getPoolWaitP99Micros();
+    long getPoolWaitMaxMicros();
+
+    String dump();
+
+    void reset();
+}
@@ -4,20 +4,70 @@ import java.io.*;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
+/*
+ * A login the CredentialStore verified recently is let in at once, without hashing
+ * and without touching the throttles. Any other attempt first takes a token from the
+ * client's IP bucket and the user name's bucket; when either is empty the answer is
+ * 429 with Retry-After, before any hashing. A correct password gives the user's token
+ * back, so only wrong guesses use up a user's bucket and a user who knows the password
+ * is not locked out by their own logins. A burst of guesses still costs at most a few
+ * PBKDF2 checks, and other servlets keep their CPU. Limits: -Dlogin.ip.burst (20)
+ * -Dlogin.ip.perSecond (5) -Dlogin.user.burst (5) -Dlogin.user.perSecond (0.2)
+ * -Dlogin.idleMillis (600000).
+ */
 public class LoginServlet extends HttpServlet {
+    static final long IDLE_MILLIS = Long.getLong("login.idleMillis", 600_000);
+    static final TokenBuckets BY_IP = new TokenBuckets(Integer.getInteger("login.ip.burst", 20),
+                                                       Double.parseDouble(System.getProperty("login.ip.perSecond", "5")),
+                                                       IDLE_MILLIS);
+    static final TokenBuckets BY_USER = new TokenBuckets(Integer.getInteger("login.user.burst", 5),
+                                                         Double.parseDouble(System.getProperty("login.user.perSecond", "0.2")),
+                                                         IDLE_MILLIS);
+    static final CredentialStore USERS = CredentialStore.withDefaultUsers();
+
     protected void doPost(HttpServletRequest request, HttpServletResponse response)
     throws ServletException, IOException {
-        response.setContentType("text/html");
-        PrintWriter out = response.getWriter();
-
         String user = request.getParameter("username");
         String pass = request.getParameter("password");
+        if (user == null || pass == null || user.length() > 100) {
+            invalid(response);
+            return;
+        }
+
+        if (USERS.verifyCached(user, pass)) {
+            welcome(response, user);
+            return;
+        }
+
+        TokenBuckets empty = !BY_IP.tryAcquire(request.getRemoteAddr()) ? BY_IP
+                           : !BY_USER.tryAcquire(user) ? BY_USER : null;
+        if (empty != null) {
+            response.setHeader("Retry-After", String.valueOf(empty.retryAfterSeconds()));
+            response.sendError(429, "Too many login attempts, try again later");
+            return;
+        }
 
-        if ("admin".equals(user) && "1234".equals(pass)) {
-            out.println("<h2>Welcome, " + user + "!</h2>");
+        if (USERS.verify(user, pass)) {
+            BY_USER.refund(user); // only failed attempts count against the user
+            welcome(response, user);
         } else {
-            out.println("<h3 style='color:red;'>Invalid Credentials</h3>");
+            invalid(response);
         }
+    }
+
+    private static void welcome(HttpServletResponse response, String user) throws IOException {
+        response.setContentType("text/html");
+        PrintWriter out = response.getWriter();
+        StringBuilder name = new StringBuilder();
+        EmployeeServlet.escape(name, user);
+        out.println("<h2>Welcome, " + name + "!</h2>");
+        out.close();
+    }
+
+    private static void invalid(HttpServletResponse response) throws IOException {
+        response.setContentType("text/html");
+        PrintWriter out = response.getWriter();
+        out.println("<h3 style='color:red;'>Invalid Credentials</h3>");
         out.close();
     }
 }
@@ -0,0 +1,115 @@
+package com.example;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.CRC32;
+
+/*
+ * Rendered pages by key (e.g. the empid), each with an ETag, kept for ttlMillis.
+ *
+ * The ETag is the data version plus a CRC of the page, so a page rendered again
+ * after it expired still has the same ETag when nothing changed and clients
+ * keep getting 304s. Writers call invalidate(): it bumps the version, and a
+ * page rendered from data read before that is not stored (same idea as the
+ * stamps in StudentCache).
+ */
+public class ResponseCache {
+    public static class Page {
+        public final byte[] body;
+        public final String etag;
+        final long expiresAt;
+
+        Page(byte[] body, String etag, long expiresAt) {
+            this.body = body;
+            this.etag = etag;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Page> pages = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public ResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Cached page or null if missing or expired
+    public Page get(String key) {
+        Page page = pages.get(key);
+        if (page != null && System.currentTimeMillis() > page.expiresAt) {
+            pages.remove(key, page);
+            page = null;
+        }
+        if (page == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return page;
+    }
+
+    // Read this before reading the data a page is rendered from
+    public long version() {
+        return version.get();
+    }
+
+    // Builds the page with its ETag; it is only cached if no invalidate() happened since version()
+    public synchronized Page put(String key, byte[] body, long dataVersion) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        Page page = new Page(body, "\"" + dataVersion + "-" + Long.toHexString(crc.getValue()) + "\"",
+                             System.currentTimeMillis() + ttlMillis);
+        if (version.get() == dataVersion) {
+            if (pages.size() >= maxEntries) {
+                // Full: drop some entry; expired ones would be dropped anyway
+                Iterator<String> it = pages.keySet().iterator();
+                if (it.hasNext()) {
+                    pages.remove(it.next());
+                }
+            }
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    public synchronized void invalidate(String key) {
+        version.incrementAndGet();
+        pages.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        version.incrementAndGet();
+        pages.clear();
+    }
+
+    // True if the If-None-Match header names this ETag (or is *)
+    public boolean notModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                notModified.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String stats() {
+        return String.format("responseCache size=%d/%d hits=%d misses=%d notModified=%d version=%d",
+                             pages.size(), maxEntries, hits.sum(), misses.sum(), notModified.sum(), version.get());
+    }
+}
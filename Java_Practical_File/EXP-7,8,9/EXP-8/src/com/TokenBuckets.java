@@ -0,0 +1,150 @@
+package com.example;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+/*
+ * One token bucket per key (a user name, an IP address), for throttling.
+ *
+ * A bucket holds up to burst tokens and gains perSecond tokens a second; each
+ * tryAcquire() takes one or says no. The whole bucket is one AtomicLong
+ * (last refill time and milli-tokens packed together) updated with a CAS loop,
+ * so there is no lock even when many threads hit the same key. The buckets are
+ * spread over stripes (ConcurrentHashMaps); one stripe after the other is swept,
+ * all of them once per idleMillis, and buckets idle for longer than that are
+ * dropped, so a flood of different keys does not stay in memory. idleMillis should be at least the time to refill
+ * a bucket, then a dropped bucket was full anyway and nothing is lost.
+ */
+public class TokenBuckets {
+    private static final int TOKEN_BITS = 21;                 // up to 2097 tokens in milli-tokens
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long START = System.nanoTime();
+
+    private final long burstMilli;
+    private final double perSecond;                            // = milli-tokens gained per millisecond
+    private final long idleMillis;
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final int stripeShift;
+    private final AtomicInteger sweepCursor = new AtomicInteger();
+    private final AtomicLong nextSweep = new AtomicLong();
+    private final long sweepEveryMillis;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder denied = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public TokenBuckets(int burst, double perSecond, long idleMillis) {
+        if (burst < 1 || burst * 1000L > TOKEN_MASK || perSecond <= 0) {
+            throw new IllegalArgumentException("burst must be 1.." + TOKEN_MASK / 1000 + " and perSecond > 0");
+        }
+        this.burstMilli = burst * 1000L;
+        this.perSecond = perSecond;
+        this.idleMillis = idleMillis;
+        // Enough stripes that one sweep only looks at a small part of the keys
+        int n = Math.max(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4));
+        stripes = (ConcurrentHashMap<String, AtomicLong>[]) new ConcurrentHashMap<?, ?>[n];
+        stripeShift = Integer.numberOfLeadingZeros(n) + 1;
+        sweepEveryMillis = Math.max(1, idleMillis / n);
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    private static long now() {
+        return (System.nanoTime() - START) / 1_000_000;
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> stripe(String key) {
+        // High bits of the mixed hash: the map inside uses the low ones, they must not all be equal
+        return stripes[(key.hashCode() * 0x9E3779B9) >>> stripeShift];
+    }
+
+    // Takes one token from key's bucket; false if it is empty
+    public boolean tryAcquire(String key) {
+        long now = now();
+        ConcurrentHashMap<String, AtomicLong> map = stripe(key);
+        AtomicLong bucket = map.get(key);
+        if (bucket == null) {
+            bucket = map.computeIfAbsent(key, k -> new AtomicLong((now << TOKEN_BITS) | burstMilli));
+        }
+
+        boolean ok;
+        while (true) {
+            long state = bucket.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long gained = now > last ? (long) ((now - last) * perSecond) : 0;
+            if (gained > 0) {
+                // Less than one milli-token is lost per refill
+                tokens = Math.min(burstMilli, tokens + gained);
+                last = now;
+            }
+            ok = tokens >= 1000;
+            if (ok) {
+                tokens -= 1000;
+            }
+            long next = (last << TOKEN_BITS) | tokens;
+            if (next == state || bucket.compareAndSet(state, next)) {
+                break;
+            }
+        }
+
+        if (ok) {
+            allowed.increment();
+        } else {
+            denied.increment();
+        }
+        long sweepAt = nextSweep.get();
+        if (now >= sweepAt && nextSweep.compareAndSet(sweepAt, now + sweepEveryMillis)) {
+            sweep(now);
+        }
+        return ok;
+    }
+
+    // Gives back a token taken by tryAcquire, e.g. when the attempt turned out fine
+    public void refund(String key) {
+        AtomicLong bucket = stripe(key).get(key);
+        if (bucket == null) {
+            return; // swept meanwhile, so it was full again
+        }
+        while (true) {
+            long state = bucket.get();
+            long tokens = Math.min(burstMilli, (state & TOKEN_MASK) + 1000);
+            long next = (state & ~TOKEN_MASK) | tokens;
+            if (next == state || bucket.compareAndSet(state, next)) {
+                return;
+            }
+        }
+    }
+
+    // Whole seconds until an empty bucket has a token again, for Retry-After
+    public long retryAfterSeconds() {
+        return (long) Math.ceil(1 / perSecond);
+    }
+
+    // Drops the idle buckets of the next stripe
+    private void sweep(long now) {
+        ConcurrentHashMap<String, AtomicLong> map = stripes[sweepCursor.getAndIncrement() & (stripes.length - 1)];
+        map.values().removeIf(bucket -> {
+            boolean idle = now - (bucket.get() >>> TOKEN_BITS) > idleMillis;
+            if (idle) {
+                evicted.increment();
+            }
+            return idle;
+        });
+    }
+
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, AtomicLong> map : stripes) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    public String stats() {
+        return String.format("tokenBuckets keys=%d stripes=%d allowed=%d denied=%d evicted=%d",
+                             size(), stripes.length, allowed.sum(), denied.sum(), evicted.sum());
+    }
+}
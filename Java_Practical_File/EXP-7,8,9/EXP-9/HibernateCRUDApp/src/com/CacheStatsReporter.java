@@ -0,0 +1,66 @@
+package com.example;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.*;
+import javax.management.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.*;
+
+/*
+ * Second-level and query cache numbers from Hibernate's statistics
+ * (hibernate.generate_statistics), one line per region: hit ratio, hits, misses,
+ * puts, entries, and evictions from the cache's own JMX statistics.
+ * start() prints them every few seconds.
+ */
+public class CacheStatsReporter {
+    public static ScheduledExecutorService start(SessionFactory factory, long seconds) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hibernate-stats");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleAtFixedRate(() -> System.out.println(report(factory)), seconds, seconds, TimeUnit.SECONDS);
+        return timer;
+    }
+
+    public static String report(SessionFactory factory) {
+        Statistics stats = factory.getStatistics();
+        if (!stats.isStatisticsEnabled()) {
+            return "⚠️ Hibernate statistics are off (hibernate.generate_statistics)";
+        }
+        StringBuilder out = new StringBuilder("--- Hibernate cache ---\n");
+        out.append(String.format("statements=%d entityLoads=%d queries=%d queryCache[hits=%d misses=%d puts=%d]%n",
+                                 stats.getPrepareStatementCount(), stats.getEntityLoadCount(),
+                                 stats.getQueryExecutionCount(), stats.getQueryCacheHitCount(),
+                                 stats.getQueryCacheMissCount(), stats.getQueryCachePutCount()));
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = stats.getCacheRegionStatistics(region);
+            if (r == null) {
+                continue;
+            }
+            long lookups = r.getHitCount() + r.getMissCount();
+            long entries = r.getElementCountInMemory();   // JCache cannot tell, then it is negative
+            long evictions = evictions(region);
+            out.append(String.format("%-34s hitRatio=%5.1f%% hits=%d misses=%d puts=%d entries=%s evictions=%s%n",
+                                     region, lookups == 0 ? 0.0 : 100.0 * r.getHitCount() / lookups, r.getHitCount(),
+                                     r.getMissCount(), r.getPutCount(), entries < 0 ? "n/a" : String.valueOf(entries),
+                                     evictions < 0 ? "n/a" : String.valueOf(evictions)));
+        }
+        return out.toString().trim();
+    }
+
+    // From the JCache statistics bean of the region's cache; -1 if there is none
+    private static long evictions(String region) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                if (region.equals(name.getKeyProperty("Cache"))) {
+                    return (Long) server.getAttribute(name, "CacheEvictions");
+                }
+            }
+        } catch (JMException e) {
+            // fall through
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.hibernate.Session;
+
+/*
+ * Cold-start time of the HibernateUtil bootstrap modes. Every run is a new JVM that
+ * does its own setup (-Dbench.appSetupMillis, 1000, e.g. reading other files) and then
+ * runs one query; the time is from main() to the query's answer.
+ *
+ *   java -cp <hibernate + h2 + these classes> com.example.HibernateStartupBenchmark
+ *
+ * Modes: classic, lazy without the boot cache, lazy with it, background with it
+ * (the setup and the bootstrap overlap). -Dbench.runs (5) runs per mode, median shown.
+ * Without -Dhibernate.connection.url the runs use an in-memory H2 database.
+ */
+public class HibernateStartupBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("child")) {
+            child();
+            return;
+        }
+
+        int runs = Integer.getInteger("bench.runs", 5);
+        Path cache = Files.createTempFile("hibernate-boot", ".properties");
+        String[][] modes = {
+            {"classic", "-Dhibernate.bootstrap=classic", "-Dhibernate.bootCache=none"},
+            {"lazy, no cache", "-Dhibernate.bootstrap=lazy", "-Dhibernate.bootCache=none"},
+            {"lazy, cached config", "-Dhibernate.bootstrap=lazy", "-Dhibernate.bootCache=" + cache},
+            {"background, cached config", "-Dhibernate.bootstrap=background", "-Dhibernate.bootCache=" + cache},
+        };
+
+        // One run to write the cache file, not counted
+        Files.delete(cache);
+        launch(modes[2]);
+
+        System.out.printf("%-28s %10s %10s   %s%n", "mode", "median ms", "min ms", "phases of the last run");
+        for (String[] mode : modes) {
+            long[] times = new long[runs];
+            String phases = "";
+            for (int i = 0; i < runs; i++) {
+                List<String> out = launch(mode);
+                for (String line : out) {
+                    if (line.startsWith("RESULT ")) {
+                        times[i] = Long.parseLong(line.substring(7).trim());
+                    } else if (line.contains("Hibernate bootstrap (")) {
+                        phases = line.substring(line.indexOf(':') + 1).trim();
+                    }
+                }
+            }
+            Arrays.sort(times);
+            System.out.printf("%-28s %10d %10d   %s%n", mode[0], times[runs / 2], times[0], phases);
+        }
+        Files.deleteIfExists(cache);
+    }
+
+    private static List<String> launch(String[] mode) throws IOException, InterruptedException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        Properties props = System.getProperties();
+        for (String key : props.stringPropertyNames()) {
+            if ((key.startsWith("hibernate.") || key.startsWith("bench.")) && !key.equals("hibernate.bootstrap")
+                    && !key.equals("hibernate.bootCache")) {
+                cmd.add("-D" + key + "=" + props.getProperty(key));
+            }
+        }
+        if (System.getProperty("hibernate.connection.url") == null) {
+            cmd.addAll(Arrays.asList("-Dhibernate.connection.url=jdbc:h2:mem:schooldb",
+                                     "-Dhibernate.connection.driver_class=org.h2.Driver",
+                                     "-Dhibernate.connection.username=sa", "-Dhibernate.connection.password=",
+                                     "-Dhibernate.dialect=org.hibernate.dialect.H2Dialect",
+                                     "-Dhibernate.hbm2ddl.auto=create"));
+        }
+        cmd.add(mode[1]);
+        cmd.add(mode[2]);
+        cmd.add(HibernateStartupBenchmark.class.getName());
+        cmd.add("child");
+
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        if (p.waitFor() != 0 || lines.stream().noneMatch(l -> l.startsWith("RESULT "))) {
+            lines.forEach(System.out::println);
+            throw new IllegalStateException(mode[0] + " run failed");
+        }
+        return lines;
+    }
+
+    // One cold start: what StudentCRUD does before its first query
+    private static void child() throws InterruptedException {
+        long start = System.nanoTime();
+        HibernateUtil.init();
+        Thread.sleep(Long.getLong("bench.appSetupMillis", 1000));
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.createQuery("select count(s) from Student s", Long.class).uniqueResult();
+        }
+        System.out.println("RESULT " + (System.nanoTime() - start) / 1_000_000);
+        System.exit(0);
+    }
+}
@@ -1,14 +1,270 @@
 package com.example;
 
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.hibernate.*;
+import org.hibernate.boot.*;
+import org.hibernate.boot.cfgxml.internal.ConfigLoader;
+import org.hibernate.boot.cfgxml.spi.*;
+import org.hibernate.boot.registry.*;
 import org.hibernate.cfg.Configuration;
 
+/*
+ * Builds the app's SessionFactory. -Dhibernate.bootstrap chooses how:
+ *   lazy        (default) the first getSessionFactory() builds it, like the old static block
+ *   background  init() starts building on another thread so main() can do its own setup
+ *               meanwhile; getSessionFactory() waits for it, ready() is the future
+ *   classic     new Configuration().configure().buildSessionFactory(), to compare against
+ *
+ * Reading hibernate.cfg.xml starts JAXB, which is slow. So the settings and mapped classes
+ * read from it are saved in -Dhibernate.bootCache (hibernate-boot.properties, "none" = off),
+ * and later starts read that file until hibernate.cfg.xml or the Hibernate version changes.
+ * (Hibernate 5 cannot save the built metamodel itself, only what it is built from.)
+ * When a dialect is set Hibernate does not connect at startup just to read database
+ * metadata. -Dhibernate.* system properties override the file, e.g. -Dhibernate.show_sql=true.
+ * The time of each phase is printed. -Dhibernate.statsSeconds=N prints the cache
+ * statistics every N seconds (CacheStatsReporter).
+ */
 public class HibernateUtil {
-    private static SessionFactory sessionFactory;
-    static {
-        sessionFactory = new Configuration().configure().buildSessionFactory();
+    private static final String CFG = "hibernate.cfg.xml";
+    private static final String MODE = System.getProperty("hibernate.bootstrap", "lazy");
+    private static final String CACHE = System.getProperty("hibernate.bootCache", "hibernate-boot.properties");
+    private static final long STATS_SECONDS = Long.getLong("hibernate.statsSeconds", 0);
+
+    private static final CompletableFuture<SessionFactory> FACTORY = new CompletableFuture<>();
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    // Call at the start of main(); only does something in background mode
+    public static void init() {
+        if ("background".equals(MODE) && STARTED.compareAndSet(false, true)) {
+            Thread t = new Thread(HibernateUtil::build, "hibernate-bootstrap");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // Completes when the SessionFactory is built (or failed to build)
+    public static CompletableFuture<SessionFactory> ready() {
+        return FACTORY;
     }
+
     public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+        if (STARTED.compareAndSet(false, true)) {
+            build();
+        }
+        try {
+            return FACTORY.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    private static void build() {
+        try {
+            SessionFactory factory = "classic".equals(MODE) ? buildClassic() : buildFast();
+            if (STATS_SECONDS > 0) {
+                CacheStatsReporter.start(factory, STATS_SECONDS);
+            }
+            FACTORY.complete(factory);
+        } catch (Throwable t) {
+            System.out.println("❌ Hibernate bootstrap failed: " + t);
+            FACTORY.completeExceptionally(t);
+        }
+    }
+
+    // Prints "phase 12 ms, phase 340 ms, ..." as the phases finish
+    private static class Phases {
+        private final long start = System.nanoTime();
+        private long last = start;
+        private final StringBuilder line;
+
+        Phases(String title) {
+            line = new StringBuilder("⏳ Hibernate bootstrap (" + title + "):");
+        }
+
+        void done(String phase) {
+            long now = System.nanoTime();
+            line.append(' ').append(phase).append(' ').append((now - last) / 1_000_000).append(" ms,");
+            last = now;
+        }
+
+        void print() {
+            System.out.println(line.append(" total ").append((last - start) / 1_000_000).append(" ms"));
+        }
+    }
+
+    private static SessionFactory buildClassic() {
+        Phases phases = new Phases("classic");
+        Configuration cfg = new Configuration().configure();
+        cfg.addProperties(overrides());
+        phases.done("configure");
+        SessionFactory factory = cfg.buildSessionFactory();
+        phases.done("session factory");
+        phases.print();
+        return factory;
+    }
+
+    private static SessionFactory buildFast() throws IOException {
+        Phases phases = new Phases(MODE);
+        BootstrapServiceRegistry bootstrap = new BootstrapServiceRegistryBuilder().build();
+        phases.done("bootstrap registry");
+
+        String stamp = stamp();
+        Properties boot = readCache(stamp);
+        if (boot == null) {
+            boot = readConfigXml(bootstrap);
+            writeCache(boot, stamp);
+            phases.done("read " + CFG);
+        } else {
+            phases.done("read " + CACHE);
+        }
+
+        Map<String, Object> settings = new HashMap<>();
+        List<String> mappings = new ArrayList<>();
+        for (String key : boot.stringPropertyNames()) {
+            if (key.startsWith("boot.mapping.")) {
+                mappings.add(boot.getProperty(key));
+            } else if (!key.startsWith("boot.")) {
+                settings.put(key, boot.getProperty(key));
+            }
+        }
+        Properties overrides = overrides();
+        for (String key : overrides.stringPropertyNames()) {
+            settings.put(key, overrides.getProperty(key));
+        }
+        if (settings.containsKey("hibernate.dialect")) {
+            settings.putIfAbsent("hibernate.temp.use_jdbc_metadata_defaults", "false");
+        }
+        if (mappings.stream().noneMatch(m -> m.startsWith("RESOURCE:") || m.startsWith("FILE:") || m.startsWith("JAR:"))) {
+            settings.putIfAbsent("hibernate.xml_mapping_enabled", "false"); // no hbm.xml files to read
+        }
+
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder(bootstrap).applySettings(settings).build();
+        phases.done("service registry");
+        try {
+            MetadataSources sources = new MetadataSources(registry);
+            Collections.sort(mappings);
+            for (String mapping : mappings) {
+                String ref = mapping.substring(mapping.indexOf(':') + 1);
+                switch (mapping.substring(0, mapping.indexOf(':'))) {
+                    case "CLASS": sources.addAnnotatedClassName(ref); break;
+                    case "PACKAGE": sources.addPackage(ref); break;
+                    case "RESOURCE": sources.addResource(ref); break;
+                    case "FILE": sources.addFile(ref); break;
+                    case "JAR": sources.addJar(new File(ref)); break;
+                }
+            }
+            Metadata metadata = sources.buildMetadata();
+            phases.done("metadata");
+            SessionFactory factory = metadata.buildSessionFactory();
+            phases.done("session factory");
+            phases.print();
+            return factory;
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+
+    // Settings and mappings of hibernate.cfg.xml as flat properties, the form they are cached in
+    private static Properties readConfigXml(BootstrapServiceRegistry bootstrap) {
+        LoadedConfig cfg = new ConfigLoader(bootstrap).loadConfigXmlResource(CFG);
+        Properties boot = new Properties();
+        for (Object e : cfg.getConfigurationValues().entrySet()) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) e;
+            if (entry.getValue() instanceof String) {
+                boot.setProperty(entry.getKey().toString(), (String) entry.getValue());
+            }
+        }
+        int i = 0;
+        for (MappingReference ref : cfg.getMappingReferences()) {
+            boot.setProperty(String.format("boot.mapping.%03d", i++), ref.getType() + ":" + ref.getReference());
+        }
+        if (!cfg.getCacheRegionDefinitions().isEmpty() || !cfg.getEventListenerMap().isEmpty()) {
+            // Not carried over by this bootstrap; classic mode reads them
+            System.out.println("⚠️ " + CFG + " has cache regions or event listeners: use -Dhibernate.bootstrap=classic");
+        }
+        return boot;
+    }
+
+    private static Properties overrides() {
+        Properties props = new Properties();
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("hibernate.") && !key.equals("hibernate.bootstrap") && !key.equals("hibernate.bootCache")
+                    && !key.equals("hibernate.statsSeconds")) {
+                props.setProperty(key, System.getProperty(key));
+            }
+        }
+        return props;
+    }
+
+    // Changes whenever hibernate.cfg.xml or the Hibernate version does
+    private static String stamp() throws IOException {
+        URL url = HibernateUtil.class.getClassLoader().getResource(CFG);
+        if (url == null) {
+            throw new HibernateException(CFG + " not found on the classpath");
+        }
+        URLConnection con = url.openConnection();
+        con.setUseCaches(false);
+        String stamp = url + " " + con.getContentLengthLong() + " " + con.getLastModified() + " "
+                       + org.hibernate.Version.getVersionString();
+        con.getInputStream().close();
+        return stamp;
+    }
+
+    private static Properties readCache(String stamp) {
+        if (CACHE.equals("none")) {
+            return null;
+        }
+        Properties boot = new Properties();
+        try (InputStream in = Files.newInputStream(Paths.get(CACHE))) {
+            boot.load(in);
+        } catch (IOException e) {
+            return null; // first start
+        }
+        return stamp.equals(boot.getProperty("boot.stamp")) ? boot : null;
+    }
+
+    private static void writeCache(Properties boot, String stamp) {
+        if (CACHE.equals("none")) {
+            return;
+        }
+        Path path = Paths.get(CACHE).toAbsolutePath();
+        Properties copy = new Properties();
+        copy.putAll(boot);
+        copy.setProperty("boot.stamp", stamp);
+        Path tmp = null;
+        try {
+            // It holds the connection password, like hibernate.cfg.xml: the file is created
+            // owner-only, never readable by others even for a moment, then moved into place
+            try {
+                tmp = Files.createTempFile(path.getParent(), "hibernate-boot", ".tmp",
+                                           PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } catch (UnsupportedOperationException notPosix) {
+                tmp = Files.createTempFile(path.getParent(), "hibernate-boot", ".tmp");
+            }
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                copy.store(out, "Read from " + CFG + " by HibernateUtil; rebuilt when it changes");
+            }
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not write " + CACHE + ": " + e.getMessage());
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,37 @@
+package com.example;
+
+import javax.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+@Entity
+@Table(name="student")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "student")
+public class Student {
+    // Ids come from a sequence 50 at a time (a table on MySQL), so inserts can be sent as
+    // JDBC batches; IDENTITY needs one INSERT per row to learn each id. student_seq.sql
+    // creates student_seq and starts it above the largest existing id.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = "student_seq", allocationSize = 50)
+    private int id;
+    private String name;
+    private int age;
+
+    public Student() {}
+    public Student(String name, int age) {
+        this.name = name;
+        this.age = age;
+    }
+    public Student(int id, String name, int age) {
+        this(name, age);
+        this.id = id;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public int getAge() { return age; }
+    public void setAge(int age) { this.age = age; }
+}
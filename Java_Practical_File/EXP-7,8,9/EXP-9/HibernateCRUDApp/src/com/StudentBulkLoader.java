@@ -0,0 +1,193 @@
+package com.example;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import org.hibernate.*;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/*
+ * Loads or updates many students from a CSV file without keeping them all in memory:
+ *
+ *   StudentCRUD generate students.csv 1000000      writes "name,age" lines to try it with
+ *   StudentCRUD generate changes.csv 1000 1        writes "id,name,age" lines for ids 1..1000
+ *   StudentCRUD import students.csv                "name,age" lines, inserted
+ *   StudentCRUD update changes.csv                 "id,name,age" lines, updated without a SELECT
+ *
+ * The file is read line by line. -Dbulk.mode chooses how rows are written:
+ *   stateless (default) a StatelessSession: no persistence context, no cache, no dirty checking
+ *   session             a normal Session, flushed and cleared every hibernate.jdbc.batch_size rows
+ * Updates always use a StatelessSession: they need nothing loaded, and in a Session each row
+ * would also lock its entry in the "student" cache region.
+ * Either way the statements go out as JDBC batches of hibernate.jdbc.batch_size (ordered by
+ * hibernate.order_inserts / order_updates), and the work is committed every
+ * -Dbulk.commitRows (10000) rows, so a failure only rolls back the last chunk.
+ * Progress every -Dbulk.progressRows (100000) rows, then rows/s and the peak heap used.
+ */
+public class StudentBulkLoader {
+    private static final String MODE = System.getProperty("bulk.mode", "stateless");
+    private static final int COMMIT_ROWS = Integer.getInteger("bulk.commitRows", 10_000);
+    private static final int PROGRESS_ROWS = Integer.getInteger("bulk.progressRows", 100_000);
+    private static final int MAX_ERRORS = 5;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final boolean update;
+    private long rows;
+    private long skipped;
+    private long committed;
+    private long peakHeap;
+    private long start;
+
+    private StudentBulkLoader(boolean update) {
+        this.update = update;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("generate")) {
+            generate(Paths.get(args[1]), Long.parseLong(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 0);
+        } else if (args.length == 2 && (args[0].equals("import") || args[0].equals("update"))) {
+            HibernateUtil.init();
+            new StudentBulkLoader(args[0].equals("update")).load(HibernateUtil.getSessionFactory(), Paths.get(args[1]));
+        } else {
+            System.out.println("Usage: import <file> | update <file> | generate <file> <rows> [firstId]");
+        }
+    }
+
+    private static void generate(Path file, long count, int firstId) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < count; i++) {
+                if (firstId > 0) {
+                    out.write((firstId + i) + ",");
+                }
+                out.write("Student" + (i % 1000) + "," + (18 + i % 10));
+                out.newLine();
+            }
+        }
+        System.out.println("✅ Wrote " + count + " students to " + file);
+    }
+
+    private void load(SessionFactory factory, Path file) throws IOException {
+        int batchSize = Math.max(1, ((SessionFactoryImplementor) factory).getSessionFactoryOptions().getJdbcBatchSize());
+        String mode = update ? "stateless" : MODE;
+        System.out.printf("⏳ %s %s: mode=%s batchSize=%d commitRows=%d%n",
+                          update ? "Updating from" : "Importing", file, mode, batchSize, COMMIT_ROWS);
+        MEMORY.gc();
+        peakHeap = heapUsed();
+        start = System.nanoTime();
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (mode.equals("session")) {
+                loadWithSession(factory, in, batchSize);
+            } else {
+                loadStateless(factory, in);
+            }
+        } catch (RuntimeException e) {
+            System.out.println("❌ Stopped after " + committed + " committed rows: " + e);
+            throw e;
+        } finally {
+            // A StatelessSession does not update the second-level cache, so drop what it may hold
+            factory.getCache().evictEntityData(Student.class);
+            factory.getCache().evictQueryRegions();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("✅ %,d rows in %.1f s = %,.0f rows/s, %,d skipped, peak heap %,d MB%n",
+                          rows, seconds, rows / seconds, skipped, peakHeap >> 20);
+    }
+
+    private void loadStateless(SessionFactory factory, BufferedReader in) throws IOException {
+        try (StatelessSession session = factory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                Student student;
+                while ((student = next(in)) != null) {
+                    if (update) {
+                        session.update(student);   // no SELECT first, the line has the whole row
+                    } else {
+                        session.insert(student);
+                    }
+                    if (rows % COMMIT_ROWS == 0) {
+                        tx.commit();
+                        committed = rows;
+                        tx = session.beginTransaction();
+                    }
+                }
+                tx.commit();
+                committed = rows;
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void loadWithSession(SessionFactory factory, BufferedReader in, int batchSize) throws IOException {
+        try (Session session = factory.openSession()) {
+            session.setCacheMode(CacheMode.IGNORE);
+            Transaction tx = session.beginTransaction();
+            try {
+                Student student;
+                while ((student = next(in)) != null) {
+                    session.save(student);
+                    if (rows % batchSize == 0) {
+                        // Send this batch and forget its entities, or the session keeps them all
+                        session.flush();
+                        session.clear();
+                    }
+                    if (rows % COMMIT_ROWS == 0) {
+                        tx.commit();
+                        committed = rows;
+                        tx = session.beginTransaction();
+                    }
+                }
+                tx.commit();
+                committed = rows;
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // The next valid line as a Student, counting it in rows; null at the end of the file
+    private Student next(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            String[] f = line.split(",", -1);
+            try {
+                Student student;
+                if (update && f.length == 3) {
+                    student = new Student(Integer.parseInt(f[0].trim()), f[1].trim(), Integer.parseInt(f[2].trim()));
+                } else if (!update && f.length == 2) {
+                    student = new Student(f[0].trim(), Integer.parseInt(f[1].trim()));
+                } else {
+                    throw new NumberFormatException("expected " + (update ? "id,name,age" : "name,age"));
+                }
+                rows++;
+                if (rows % 1000 == 0) {
+                    peakHeap = Math.max(peakHeap, heapUsed());
+                }
+                if (rows % PROGRESS_ROWS == 0) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("   %,d rows, %,.0f rows/s, heap %,d MB%n", rows, rows / seconds, heapUsed() >> 20);
+                }
+                return student;
+            } catch (NumberFormatException e) {
+                if (++skipped <= MAX_ERRORS) {
+                    System.out.println("⚠️ Skipped line \"" + line + "\": " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static long heapUsed() {
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
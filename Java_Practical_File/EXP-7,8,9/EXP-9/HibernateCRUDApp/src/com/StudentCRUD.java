@@ -3,7 +3,14 @@ package com.example;
 import org.hibernate.*;
 
 public class StudentCRUD {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            // import / update / generate: see StudentBulkLoader
+            StudentBulkLoader.main(args);
+            return;
+        }
+        // With -Dhibernate.bootstrap=background Hibernate starts building here
+        HibernateUtil.init();
         SessionFactory factory = HibernateUtil.getSessionFactory();
         Session session = factory.openSession();
         Transaction tx = session.beginTransaction();
@@ -15,6 +22,7 @@ public class StudentCRUD {
         // READ
         Student s2 = session.get(Student.class, 1);
         System.out.println("Student: " + s2.getName());
+        System.out.println("Students named Vickrant: " + StudentQueries.findByName(session, "Vickrant").size());
 
         // UPDATE
         s2.setAge(22);
@@ -26,5 +34,6 @@ public class StudentCRUD {
         tx.commit();
         session.close();
         System.out.println("CRUD operations done!");
+        System.out.println(CacheStatsReporter.report(factory));
     }
 }
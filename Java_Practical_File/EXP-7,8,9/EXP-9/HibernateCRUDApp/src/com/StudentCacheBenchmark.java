@@ -0,0 +1,112 @@
+package com.example;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import org.hibernate.*;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+
+/*
+ * Read-heavy load on Student with the second-level and query cache off and on, against
+ * an in-memory H2 database (unless -Dhibernate.connection.url is given):
+ *
+ *   java -cp <hibernate + hibernate-jcache + ehcache + h2 + these classes> com.example.StudentCacheBenchmark
+ *
+ * Each operation opens its own session, like one web request: session.get() by id
+ * (80% of them on 20% of the ids), 5% StudentQueries.findByName and -Dbench.writePercent (1)
+ * age updates. Every update makes all cached query results of the table stale, so the
+ * query cache only pays off when writes are rare.
+ * -Dbench.students (2000), -Dbench.ops (50000). Shows ops/s and how many SQL statements ran.
+ */
+public class StudentCacheBenchmark {
+    private static final int STUDENTS = Integer.getInteger("bench.students", 2000);
+    private static final int OPS = Integer.getInteger("bench.ops", 50_000);
+    private static final int WRITE_PERCENT = Integer.getInteger("bench.writePercent", 1);
+    private static final int NAMES = 50;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %12s %10s %12s %12s%n",
+                          "cache", "ops/s", "statements", "per op", "entity hit", "query hit");
+        run(false);
+        run(true);
+    }
+
+    private static void run(boolean cached) {
+        Configuration cfg = new Configuration().configure();
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("hibernate.")) {
+                cfg.setProperty(key, System.getProperty(key));
+            }
+        }
+        if (System.getProperty("hibernate.connection.url") == null) {
+            cfg.setProperty("hibernate.connection.url", "jdbc:h2:mem:schooldb;DB_CLOSE_DELAY=-1");
+            cfg.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+            cfg.setProperty("hibernate.connection.username", "sa");
+            cfg.setProperty("hibernate.connection.password", "");
+            cfg.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+            cfg.setProperty("hibernate.hbm2ddl.auto", "create");
+        }
+        cfg.setProperty("hibernate.cache.use_second_level_cache", String.valueOf(cached));
+        cfg.setProperty("hibernate.cache.use_query_cache", String.valueOf(cached));
+        cfg.setProperty("hibernate.generate_statistics", "true");
+        cfg.setProperty("hibernate.session.events.log", "false");
+
+        try (SessionFactory factory = cfg.buildSessionFactory()) {
+            List<Integer> ids = seed(factory);
+            // Warm up the JIT (and the caches) before measuring
+            work(factory, ids, OPS / 5);
+            factory.getStatistics().clear();
+
+            long start = System.nanoTime();
+            work(factory, ids, OPS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Statistics stats = factory.getStatistics();
+            long entityLookups = stats.getSecondLevelCacheHitCount() + stats.getSecondLevelCacheMissCount();
+            long queryLookups = stats.getQueryCacheHitCount() + stats.getQueryCacheMissCount();
+            System.out.printf("%-10s %,10.0f %,12d %10.2f %11.1f%% %11.1f%%%n", cached ? "on" : "off", OPS / seconds,
+                              stats.getPrepareStatementCount(), (double) stats.getPrepareStatementCount() / OPS,
+                              entityLookups == 0 ? 0.0 : 100.0 * stats.getSecondLevelCacheHitCount() / entityLookups,
+                              queryLookups == 0 ? 0.0 : 100.0 * stats.getQueryCacheHitCount() / queryLookups);
+            if (cached) {
+                System.out.println(CacheStatsReporter.report(factory));
+            }
+        }
+    }
+
+    private static List<Integer> seed(SessionFactory factory) {
+        List<Integer> ids = new ArrayList<>(STUDENTS);
+        try (Session session = factory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.createQuery("delete from Student").executeUpdate();
+            for (int i = 0; i < STUDENTS; i++) {
+                Student s = new Student("Student" + (i % NAMES), 18 + i % 10);
+                session.save(s);
+                ids.add(s.getId());
+            }
+            tx.commit();
+        }
+        return ids;
+    }
+
+    private static void work(SessionFactory factory, List<Integer> ids, int ops) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int hot = Math.max(1, ids.size() / 5);
+        for (int i = 0; i < ops; i++) {
+            int id = ids.get(random.nextInt(10) < 8 ? random.nextInt(hot) : random.nextInt(ids.size()));
+            int kind = random.nextInt(100);
+            try (Session session = factory.openSession()) {
+                if (kind < 95 - WRITE_PERCENT) {
+                    session.get(Student.class, id);
+                } else if (kind < 100 - WRITE_PERCENT) {
+                    StudentQueries.findByName(session, "Student" + random.nextInt(NAMES));
+                } else {
+                    Transaction tx = session.beginTransaction();
+                    Student s = session.get(Student.class, id);
+                    s.setAge(18 + random.nextInt(10));
+                    tx.commit();
+                }
+            }
+        }
+    }
+}
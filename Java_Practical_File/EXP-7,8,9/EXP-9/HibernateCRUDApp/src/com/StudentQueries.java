@@ -0,0 +1,32 @@
+package com.example;
+
+import java.util.List;
+import org.hibernate.Session;
+
+/*
+ * Lookups that are run often with the same parameters. Their results are kept in the
+ * "student-queries" region (ehcache.xml): the ids of the matching rows, while the rows
+ * themselves come from the "student" region. Any change to the student table makes
+ * the cached results stale and they are queried again.
+ * A row missing from the "student" region is loaded with its own SELECT, so a cached
+ * query with many rows, or a region too small for them, can cost more than the query.
+ */
+public class StudentQueries {
+    static final String REGION = "student-queries";
+
+    public static List<Student> findByName(Session session, String name) {
+        return session.createQuery("from Student s where s.name = :name order by s.id", Student.class)
+                      .setParameter("name", name)
+                      .setCacheable(true)
+                      .setCacheRegion(REGION)
+                      .getResultList();
+    }
+
+    public static long countByAge(Session session, int age) {
+        return session.createQuery("select count(s) from Student s where s.age = :age", Long.class)
+                      .setParameter("age", age)
+                      .setCacheable(true)
+                      .setCacheRegion(REGION)
+                      .uniqueResult();
+    }
+}
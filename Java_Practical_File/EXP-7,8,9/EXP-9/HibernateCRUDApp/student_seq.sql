@@ -0,0 +1,31 @@
+-- Run once against schooldb before starting this version of the app (MySQL):
+--   mysql -u root -p schooldb < student_seq.sql
+--
+-- Student ids now come from student_seq, 50 at a time (see Student.java). MySQL has no
+-- sequences, so Hibernate keeps it as a one-row table: it reads next_val, adds 50, and
+-- hands out the 50 ids up to the value it read. Seeding next_val with max(id) + 50 makes
+-- the first new student max(id) + 1. Running the script again only ever raises next_val,
+-- so it never hands out an id twice.
+
+CREATE TABLE IF NOT EXISTS student (
+    id INT NOT NULL,
+    age INT NOT NULL,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS student_seq (
+    next_val BIGINT
+);
+
+START TRANSACTION;
+
+INSERT INTO student_seq (next_val)
+SELECT 0 FROM DUAL WHERE NOT EXISTS (SELECT * FROM student_seq);
+
+UPDATE student_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM student));
+
+COMMIT;
+
+SELECT next_val FROM student_seq;